@@ -8,33 +8,163 @@
 package com.zybooks.weighttrackerapp;
 
 import android.content.Context;
-import android.content.Intent;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
- * The Adapter class is used to create a card display on the weight screen using the user data
+ * The Adapter class is used to create a card display on the weight screen using the user data.
+ * Entries are kept in primitive arrays and only turned into text when a card is bound.
  */
 public class Adapter extends RecyclerView.Adapter<Adapter.MyViewHolder> {
     Context context;
-    ArrayList<String> dates;
-    ArrayList<String> weights;
-    ArrayList<String> goals;
-    static String user;
+    Snapshot rows = Snapshot.EMPTY;
+    int goal;
+    final OnEditListener editListener;
 
-    public Adapter(Context context, ArrayList<String> dates, ArrayList<String> weights,
-                   ArrayList<String> goals, String user) {
+    public Adapter(Context context, OnEditListener editListener) {
         this.context = context;
-        this.dates = dates;
-        this.weights = weights;
-        this.goals = goals;
-        Adapter.user = user;
+        this.editListener = editListener;
+
+        //Row ids let RecyclerView keep and rebind only the cards that changed
+        setHasStableIds(true);
+    }
+
+    /**
+     * This method shows the rows of an update. Only the cards that changed are notified when
+     * the adapter is still showing the rows the update was made from, otherwise every card is
+     * rebound, such as when a new adapter is given the rows after a rotation.
+     * @param update Update made by append or diff.
+     */
+    public void submit(Update update) {
+        Snapshot shown = rows;
+        rows = update.rows;
+
+        if (update.from != shown) {
+            notifyDataSetChanged();
+        } else if (update.result != null) {
+            update.result.dispatchUpdatesTo(this);
+        } else {
+            notifyItemRangeInserted(shown.size, rows.size - shown.size);
+        }
+    }
+
+    /**
+     * This method changes the goal the weights are compared to.
+     * @param goal Weight goal of the user or 0 if no goal set.
+     */
+    public void setGoal(int goal) {
+        if (this.goal != goal) {
+            this.goal = goal;
+            notifyItemRangeChanged(0, rows.size);
+        }
+    }
+
+    /**
+     * This method adds a page of entries to the end of some rows. The arrays are shared with
+     * the old rows while they have room, so appending is only safe onto the newest rows.
+     * @param old Rows to add to.
+     * @param page Entries to add.
+     * @return The longer rows.
+     */
+    public static Update append(Snapshot old, List<WeightEntry> page) {
+        long[] ids = old.ids;
+        int[] days = old.days;
+        int[] weights = old.weights;
+        int size = old.size;
+
+        if (size + page.size() > ids.length) {
+            int capacity = Math.max(size + page.size(), ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            days = Arrays.copyOf(days, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+
+        for (WeightEntry entry : page) {
+            ids[size] = entry.id;
+            days[size] = (int) entry.epochDay;
+            weights[size] = entry.weight;
+            size++;
+        }
+
+        return new Update(old, new Snapshot(ids, days, weights, size), null);
+    }
+
+    /**
+     * This method works out the smallest set of card changes between some rows and a new list
+     * of entries. It is slow for long lists so it should not be run on the main thread.
+     * @param old Rows shown when the new entries were loaded.
+     * @param entries New entries to show.
+     * @return The new rows along with the changes needed to show them.
+     */
+    public static Update diff(Snapshot old, List<WeightEntry> entries) {
+        Snapshot updated = new Snapshot(new long[entries.size()], new int[entries.size()],
+                new int[entries.size()], entries.size());
+        for (int i = 0; i < updated.size; i++) {
+            WeightEntry entry = entries.get(i);
+            updated.ids[i] = entry.id;
+            updated.days[i] = (int) entry.epochDay;
+            updated.weights[i] = entry.weight;
+        }
+
+        DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return old.size;
+            }
+
+            @Override
+            public int getNewListSize() {
+                return updated.size;
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                return old.ids[oldPosition] == updated.ids[newPosition];
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return old.days[oldPosition] == updated.days[newPosition]
+                        && old.weights[oldPosition] == updated.weights[newPosition];
+            }
+        });
+
+        return new Update(old, updated, result);
+    }
+
+    /**
+     * This method gets the row id of an entry.
+     * @param position Position of the entry.
+     * @return Row id of the entry.
+     */
+    public long getEntryId(int position) {
+        return rows.ids[position];
+    }
+
+    /**
+     * This method gets the weight of an entry.
+     * @param position Position of the entry.
+     * @return Weight of the entry.
+     */
+    public int getWeight(int position) {
+        return rows.weights[position];
+    }
+
+    /**
+     * This method gets the date of an entry.
+     * @param position Position of the entry.
+     * @return Epoch day of the entry.
+     */
+    public int getEpochDay(int position) {
+        return rows.days[position];
     }
 
     /**
@@ -52,7 +182,7 @@ public class Adapter extends RecyclerView.Adapter<Adapter.MyViewHolder> {
         LayoutInflater inflater = LayoutInflater.from(context);
         View view = inflater.inflate(R.layout.grid_row, parent, false);
 
-        return new Adapter.MyViewHolder(view);
+        return new Adapter.MyViewHolder(view, editListener);
     }
 
     /**
@@ -63,19 +193,150 @@ public class Adapter extends RecyclerView.Adapter<Adapter.MyViewHolder> {
      */
     @Override
     public void onBindViewHolder(@NonNull Adapter.MyViewHolder holder, int position) {
-        //Assign values to the views based on position in recycler view
-        holder.dateView.setText(dates.get(position));
-        holder.weightView.setText(weights.get(position));
-        holder.goalView.setText(goals.get(position));
+        //Assign values to the views based on position in recycler view. Each holder owns its
+        //buffers so the text is written in place instead of allocating strings while scrolling
+        int weight = rows.weights[position];
+        holder.dateView.setText(holder.dateText, 0, formatDate(rows.days[position], holder.dateText));
+        holder.weightView.setText(holder.weightText, 0, formatNumber(weight, holder.weightText, 0));
+        holder.goalView.setText(holder.goalText, 0, formatGoalDiff(weight, holder.goalText));
+    }
+
+    /**
+     * This method writes an epoch day into a buffer in MM/dd/yy format.
+     * @param epochDay Number of days since 01/01/1970.
+     * @param out Buffer of at least 8 characters.
+     * @return Number of characters written.
+     */
+    static int formatDate(int epochDay, char[] out) {
+        //Converts days to a civil date without allocating (Howard Hinnant's algorithm)
+        int z = epochDay + 719468;
+        int era = (z >= 0 ? z : z - 146096) / 146097;
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        int shortYear = Math.floorMod(year, 100);
+
+        out[0] = (char) ('0' + month / 10);
+        out[1] = (char) ('0' + month % 10);
+        out[2] = '/';
+        out[3] = (char) ('0' + day / 10);
+        out[4] = (char) ('0' + day % 10);
+        out[5] = '/';
+        out[6] = (char) ('0' + shortYear / 10);
+        out[7] = (char) ('0' + shortYear % 10);
+        return 8;
+    }
+
+    /**
+     * This method writes the difference between a weight and the goal into a buffer. A weight
+     * above the goal shows as a negative amount still to lose.
+     * @param weight Weight of the entry.
+     * @param out Buffer of at least 12 characters.
+     * @return Number of characters written.
+     */
+    int formatGoalDiff(int weight, char[] out) {
+        if (goal == 0) {
+            out[0] = 'N';
+            out[1] = '/';
+            out[2] = 'A';
+            return 3;
+        }
+
+        int diff = weight - goal;
+        if (diff == 0) {
+            out[0] = '0';
+            return 1;
+        }
+        out[0] = diff > 0 ? '-' : '+';
+        return formatNumber(Math.abs(diff), out, 1);
+    }
+
+    /**
+     * This method writes a non-negative number into a buffer.
+     * @param value Number to write.
+     * @param out Buffer to write to.
+     * @param start Index to start writing at.
+     * @return Index after the last character written.
+     */
+    static int formatNumber(int value, char[] out, int start) {
+        int end = start;
+        do {
+            out[end++] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+
+        //Digits were written lowest first so flip them
+        for (int i = start, j = end - 1; i < j; i++, j--) {
+            char digit = out[i];
+            out[i] = out[j];
+            out[j] = digit;
+        }
+        return end;
     }
 
     /**
      * This method is used to get the count of cards to be created.
-     * @return Size of the dates array.
+     * @return Number of entries loaded.
      */
     @Override
     public int getItemCount() {
-        return dates.size();
+        return rows.size;
+    }
+
+    /**
+     * This method gives RecyclerView a stable id for each card.
+     * @param position Position of the entry.
+     * @return Row id of the entry.
+     */
+    @Override
+    public long getItemId(int position) {
+        return rows.ids[position];
+    }
+
+    /**
+     * Receives the position of a card when its edit button is pressed.
+     */
+    public interface OnEditListener {
+        void onEdit(int position);
+    }
+
+    /**
+     * Rows of entries. The first size elements of each array are never changed once made.
+     */
+    public static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new long[0], new int[0], new int[0], 0);
+
+        final long[] ids;
+        final int[] days;
+        final int[] weights;
+        final int size;
+
+        Snapshot(long[] ids, int[] days, int[] weights, int size) {
+            this.ids = ids;
+            this.days = days;
+            this.weights = weights;
+            this.size = size;
+        }
+    }
+
+    /**
+     * New rows for the adapter and the changes that lead to them from older rows. A null
+     * result means the new rows were appended to the end of the older ones.
+     */
+    public static final class Update {
+        final Snapshot from;
+        final Snapshot rows;
+        final DiffUtil.DiffResult result;
+
+        Update(Snapshot from, Snapshot rows, DiffUtil.DiffResult result) {
+            this.from = from;
+            this.rows = rows;
+            this.result = result;
+        }
     }
 
     /**
@@ -86,26 +347,23 @@ public class Adapter extends RecyclerView.Adapter<Adapter.MyViewHolder> {
         TextView weightView;
         TextView goalView;
         Button editButton;
+        final char[] dateText = new char[8];
+        final char[] weightText = new char[11];
+        final char[] goalText = new char[12];
 
-        public MyViewHolder(@NonNull View itemView) {
+        public MyViewHolder(@NonNull View itemView, OnEditListener editListener) {
             super(itemView);
 
             dateView = itemView.findViewById(R.id.date_view);
             weightView = itemView.findViewById(R.id.weight_view);
             goalView = itemView.findViewById(R.id.goal_view);
             editButton = itemView.findViewById(R.id.edit_button);
-            editButton.setOnClickListener(view -> editWeight());
-        }
-
-        /**
-         * This method sends the user to the edit weight screen and passes the data of the card.
-         */
-        private void editWeight() {
-            Intent intent = new Intent(itemView.getContext(), EditWeightScreen.class);
-            intent.putExtra("user_key", user);
-            intent.putExtra("date_key", dateView.getText().toString());
-            intent.putExtra("weight_key", weightView.getText().toString());
-            itemView.getContext().startActivity(intent);
+            editButton.setOnClickListener(view -> {
+                int position = getBindingAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    editListener.onEdit(position);
+                }
+            });
         }
     }
 }
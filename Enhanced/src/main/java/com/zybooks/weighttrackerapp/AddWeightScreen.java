@@ -16,8 +16,10 @@ import android.telephony.SmsManager;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.Toast;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
+import androidx.lifecycle.ViewModelProvider;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Locale;
@@ -31,7 +33,9 @@ public class AddWeightScreen extends AppCompatActivity {
     private EditText dateText;
     private EditText weightText;
     private String user;
-    private Database database;
+    private AsyncDatabase database;
+    private AddWeightViewModel viewModel;
+    private AlertDialog suspiciousDialog;
     private int goal;
 
     @Override
@@ -41,13 +45,16 @@ public class AddWeightScreen extends AppCompatActivity {
 
         Intent intent = getIntent();
         user = intent.getStringExtra("user_key");
-        database = Database.getInstance(getApplicationContext());
-        goal = database.getGoal(user);
+        database = AsyncDatabase.getInstance(getApplicationContext());
+        database.read(db -> db.getGoal(user), userGoal -> goal = userGoal);
+        viewModel = new ViewModelProvider(this).get(AddWeightViewModel.class);
         Button addWeightButton = findViewById(R.id.add_weight_button);
         weightText = findViewById(R.id.weight);
         dateText = findViewById(R.id.date);
 
         addWeightButton.setOnClickListener(view -> confirmWeight());
+        //Only delivered while the screen is alive, and again if it is recreated before handled
+        viewModel.getAddition().observe(this, this::showAddition);
 
         DatePickerDialog.OnDateSetListener date = (view, year, month, day) -> {
             myCalendar.set(Calendar.YEAR, year);
@@ -86,25 +93,6 @@ public class AddWeightScreen extends AppCompatActivity {
             weight = Integer.parseInt(weightText.getText().toString());
         }
 
-        //Makes sure all entries are valid before sending SMS
-        if ((weight != 0) && (!date.equals("0"))) {
-            /* if goal weight is equal to weight and has sms permission send congratulatory sms */
-            if ((goal == weight) && (hasPermission())) {
-                String phoneNumber = database.getPhoneNumber(user);
-                //Makes sure the user has entered a phone number
-                if (!phoneNumber.equals("EMPTY")) {
-                    String message = "You did It!!! Congratulations on reaching your goal!";
-                    SmsManager sms = SmsManager.getDefault();
-                    sms.sendTextMessage(phoneNumber, null, message, null,
-                            null);
-                } else {
-                    //Reminder if they elected to receive SMS and haven't set a valid number
-                    Toast.makeText(getApplicationContext(),
-                            "Please add your phone number to receive SMS", Toast.LENGTH_LONG).show();
-                }
-            }
-        }
-
         //Checks to make sure there is a valid entry
         if (date.equals("0")) {
             Toast.makeText(AddWeightScreen.this,
@@ -117,16 +105,78 @@ public class AddWeightScreen extends AppCompatActivity {
             return;
         }
 
-        /* add weight to the database */
-        if (database.addWeight(user, date, weight)) {
-            Toast.makeText(getApplicationContext(), "Weight added", Toast.LENGTH_SHORT).show();
-            Intent intent = new Intent(this, WeightScreen.class);
-            intent.putExtra("user_key", user);
-            startActivity(intent);
-        } else {
-            //Database design won't allow you to enter the same entry
-            Toast.makeText(AddWeightScreen.this,
-                    "Duplicate entry", Toast.LENGTH_LONG).show();
+        /* check the weight against recent entries so typos are caught before they are saved */
+        viewModel.addWeight(user, date, weight);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        //The question is asked again by the recreated screen
+        if (suspiciousDialog != null) {
+            suspiciousDialog.dismiss();
+        }
+    }
+
+    /**
+     * This method handles the outcome of adding a weight. A suspicious weight is confirmed with
+     * the user and the screen is closed once the weight is added.
+     * @param addition Outcome of the add or null if it has already been handled.
+     */
+    private void showAddition(Database.Addition addition) {
+        if (addition == null) {
+            return;
+        }
+
+        int weight = viewModel.getWeight();
+        switch (addition) {
+            case SUSPICIOUS:
+                suspiciousDialog = new AlertDialog.Builder(this)
+                        .setTitle(R.string.suspicious_title)
+                        .setMessage(getString(R.string.suspicious_message, weight))
+                        .setPositiveButton(R.string.add_anyway,
+                                (dialog, which) -> viewModel.confirmWeight(user))
+                        .setNegativeButton(R.string.fix_weight,
+                                (dialog, which) -> viewModel.clearAddition())
+                        .setOnCancelListener(dialog -> viewModel.clearAddition())
+                        .show();
+                break;
+            case ADDED:
+                viewModel.clearAddition();
+                Toast.makeText(getApplicationContext(), "Weight added", Toast.LENGTH_SHORT).show();
+                //Only sent once the weight is saved, so a declined or duplicate entry sends nothing
+                sendGoalSms(weight);
+                finish();
+                break;
+            default:
+                viewModel.clearAddition();
+                //Database design won't allow you to enter the same entry
+                Toast.makeText(AddWeightScreen.this,
+                        "Duplicate entry", Toast.LENGTH_LONG).show();
+                break;
+        }
+    }
+
+    /**
+     * This method sends a congratulatory SMS if the weight added reached the user's goal.
+     * @param weight Amount of weight recorded.
+     */
+    private void sendGoalSms(int weight) {
+        /* if goal weight is equal to weight and has sms permission send congratulatory sms */
+        if ((goal == weight) && (hasPermission())) {
+            database.read(db -> db.getPhoneNumber(user), phoneNumber -> {
+                //Makes sure the user has entered a phone number
+                if (!phoneNumber.equals("EMPTY")) {
+                    String message = "You did It!!! Congratulations on reaching your goal!";
+                    SmsManager sms = SmsManager.getDefault();
+                    sms.sendTextMessage(phoneNumber, null, message, null,
+                            null);
+                } else {
+                    //Reminder if they elected to receive SMS and haven't set a valid number
+                    Toast.makeText(getApplicationContext(),
+                            "Please add your phone number to receive SMS", Toast.LENGTH_LONG).show();
+                }
+            });
         }
     }
 
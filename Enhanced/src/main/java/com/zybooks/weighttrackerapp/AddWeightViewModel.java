@@ -0,0 +1,88 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Keep a weight being added while the add weight screen is recreated
+ */
+
+package com.zybooks.weighttrackerapp;
+
+import android.app.Application;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+/**
+ * The AddWeightViewModel class holds the weight being added and the outcome of adding it. The
+ * write can wait behind an import, so the outcome is kept here until a live screen shows it.
+ */
+public class AddWeightViewModel extends AndroidViewModel {
+    private final AsyncDatabase database;
+    //Outcome of the last add, or null once the screen has handled it
+    private final MutableLiveData<Database.Addition> addition = new MutableLiveData<>();
+    private String date;
+    private int weight;
+    private boolean adding;
+
+    public AddWeightViewModel(@NonNull Application application) {
+        super(application);
+        database = AsyncDatabase.getInstance(application);
+    }
+
+    /**
+     * Method to add a weight, checking it against the user's recent entries first.
+     * @param user Username of user.
+     * @param date Date of weight entry.
+     * @param weight Amount of weight recorded.
+     */
+    public void addWeight(String user, String date, int weight) {
+        add(user, date, weight, false);
+    }
+
+    /**
+     * Method to add the suspicious weight the user has confirmed.
+     * @param user Username of user.
+     */
+    public void confirmWeight(String user) {
+        addition.setValue(null);
+        add(user, date, weight, true);
+    }
+
+    /**
+     * Method to get the outcome of the last add until it has been handled.
+     * @return ADDED, SUSPICIOUS or DUPLICATE, or null if there is none to handle.
+     */
+    public LiveData<Database.Addition> getAddition() {
+        return addition;
+    }
+
+    /**
+     * Method to forget the outcome of the last add once it has been handled.
+     */
+    public void clearAddition() {
+        addition.setValue(null);
+    }
+
+    /**
+     * Method to get the weight of the last add.
+     * @return Amount of weight recorded.
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    private void add(String user, String date, int weight, boolean confirmed) {
+        if (adding) {
+            return;
+        }
+        adding = true;
+        this.date = date;
+        this.weight = weight;
+
+        database.write(db -> db.addCheckedWeight(user, date, weight, confirmed), result -> {
+            adding = false;
+            addition.setValue(result);
+        });
+    }
+}
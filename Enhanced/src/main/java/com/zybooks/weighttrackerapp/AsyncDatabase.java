@@ -0,0 +1,106 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Keep database work off of the main thread
+ */
+
+package com.zybooks.weighttrackerapp;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The AsyncDatabase class runs Database calls on background threads and delivers the results
+ * on the main thread. Writes go through a single thread so they are applied in order, while
+ * reads share a small pool and run alongside them thanks to write-ahead logging.
+ */
+public final class AsyncDatabase {
+    private static final int READER_THREADS = 2;
+
+    private static AsyncDatabase asyncDatabase;
+    private final Database database;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "database-writer"));
+    private final ExecutorService readers = Executors.newFixedThreadPool(READER_THREADS,
+            runnable -> new Thread(runnable, "database-reader"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private AsyncDatabase(Context context) {
+        database = Database.getInstance(context);
+    }
+
+    /**
+     * This method creates the async database or returns the old one if already created.
+     * @param context Context used for the database
+     * @return The async database.
+     */
+    public static synchronized AsyncDatabase getInstance(Context context) {
+        if (asyncDatabase == null) {
+            asyncDatabase = new AsyncDatabase(context.getApplicationContext());
+        }
+        return asyncDatabase;
+    }
+
+    /**
+     * Method to get the tracker that reports which tables each write changed.
+     * @return The invalidation tracker of the database.
+     */
+    public InvalidationTracker getInvalidationTracker() {
+        return database.getInvalidationTracker();
+    }
+
+    /**
+     * Method to run a query that only reads from the database.
+     * @param query Work to run against the database.
+     * @param callback Receives the result on the main thread.
+     * @return A future that can be used to cancel the query.
+     */
+    public <T> Future<?> read(Query<T> query, Callback<T> callback) {
+        return submit(readers, query, callback);
+    }
+
+    /**
+     * Method to run a query that changes the database.
+     * @param query Work to run against the database.
+     * @param callback Receives the result on the main thread.
+     * @return A future that can be used to cancel the query.
+     */
+    public <T> Future<?> write(Query<T> query, Callback<T> callback) {
+        return submit(writer, query, callback);
+    }
+
+    private <T> Future<?> submit(ExecutorService executor, Query<T> query, Callback<T> callback) {
+        return executor.submit(() -> {
+            T result;
+            try {
+                result = query.run(database);
+            } catch (Exception e) {
+                //Errors are raised on the main thread just like the synchronous calls did
+                mainHandler.post(() -> {
+                    throw new RuntimeException(e);
+                });
+                return;
+            }
+            mainHandler.post(() -> callback.onResult(result));
+        });
+    }
+
+    /**
+     * Work to be run against the database on a background thread.
+     */
+    public interface Query<T> {
+        T run(Database database) throws Exception;
+    }
+
+    /**
+     * Receives the result of a query on the main thread.
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+}
@@ -10,16 +10,11 @@ package com.zybooks.weighttrackerapp;
 import androidx.appcompat.app.AppCompatActivity;
 import android.content.Intent;
 import android.os.Bundle;
+import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
+import android.widget.ProgressBar;
 import android.widget.Toast;
-import java.security.InvalidAlgorithmParameterException;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.security.spec.InvalidKeySpecException;
-import javax.crypto.BadPaddingException;
-import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
 
 /**
  * This class contains the logic to control the account creation screen.
@@ -29,7 +24,9 @@ public class CreateAccountScreen extends AppCompatActivity {
     private EditText username;
     private EditText password;
     private EditText secondPassword;
-    private Database database;
+    private Button createAccountButton;
+    private ProgressBar progress;
+    private AsyncDatabase database;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -39,42 +36,36 @@ public class CreateAccountScreen extends AppCompatActivity {
         username = findViewById(R.id.textUser);
         password = findViewById(R.id.textPass);
         secondPassword = findViewById(R.id.second_textPass);
-        database = Database.getInstance(getApplicationContext());
-        Button createAccountButton = findViewById(R.id.create_account_button);
+        database = AsyncDatabase.getInstance(getApplicationContext());
+        createAccountButton = findViewById(R.id.create_account_button);
+        progress = findViewById(R.id.create_progress);
 
-        createAccountButton.setOnClickListener(view -> {
-            try {
-                addUser();
-            } catch (NoSuchPaddingException | IllegalBlockSizeException | NoSuchAlgorithmException |
-                     BadPaddingException | InvalidKeyException |
-                     InvalidAlgorithmParameterException | InvalidKeySpecException e) {
-                throw new RuntimeException(e);
-            }
-        });
+        createAccountButton.setOnClickListener(view -> addUser());
     }
 
     /**
      * This method gets the user information, encrypts it and passes it to the database.
      */
-    private void addUser() throws NoSuchPaddingException, IllegalBlockSizeException,
-            NoSuchAlgorithmException, BadPaddingException, InvalidKeyException,
-            InvalidAlgorithmParameterException, InvalidKeySpecException {
-
+    private void addUser() {
         String user = username.getText().toString().toLowerCase().trim();
         String pass = password.getText().toString().trim();
         String secondPass = secondPassword.getText().toString().trim();
 
         if (user.length() != 0 && !user.equals("null")) {
             if (pass.length() != 0 && pass.equals(secondPass)) {
-                if (database.addUser(user, pass)) {
-                    Toast.makeText(getApplicationContext(),
-                            "Account Created!", Toast.LENGTH_LONG).show();
-                    Intent intent = new Intent(this, MainActivity.class);
-                    startActivity(intent);
-                } else {
-                    Toast.makeText(CreateAccountScreen.this,
-                            "Username Already Taken! Try Again", Toast.LENGTH_LONG).show();
-                }
+                setBusy(true);
+                database.write(db -> db.addUser(user, pass), added -> {
+                    setBusy(false);
+                    if (added) {
+                        Toast.makeText(getApplicationContext(),
+                                "Account Created!", Toast.LENGTH_LONG).show();
+                        Intent intent = new Intent(this, MainActivity.class);
+                        startActivity(intent);
+                    } else {
+                        Toast.makeText(CreateAccountScreen.this,
+                                "Username Already Taken! Try Again", Toast.LENGTH_LONG).show();
+                    }
+                });
             } else {
                 Toast.makeText(CreateAccountScreen.this,
                         "Passwords Do Not Match!", Toast.LENGTH_LONG).show();
@@ -84,4 +75,16 @@ public class CreateAccountScreen extends AppCompatActivity {
                     "Please Enter A Username", Toast.LENGTH_LONG).show();
         }
     }
+
+    /**
+     * Method to show the progress bar and lock the form while the account is being created.
+     * @param busy "True" while the account is being created.
+     */
+    private void setBusy(boolean busy) {
+        progress.setVisibility(busy ? View.VISIBLE : View.GONE);
+        username.setEnabled(!busy);
+        password.setEnabled(!busy);
+        secondPassword.setEnabled(!busy);
+        createAccountButton.setEnabled(!busy);
+    }
 }
\ No newline at end of file
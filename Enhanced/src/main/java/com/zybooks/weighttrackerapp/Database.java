@@ -10,14 +10,23 @@ package com.zybooks.weighttrackerapp;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteConstraintException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
@@ -32,11 +41,40 @@ public class Database extends SQLiteOpenHelper {
     private static Database database;
     private static final Encryptor encryptor = Encryptor.getInstance();
     private static final String DATABASE_NAME = "WeightTracker.db";
-    private static final int VERSION = 2;
+    static final int VERSION = 11;
+
+    //Goal and phone number of each user that has been looked up, kept in step with every write
+    private final HashMap<String, Profile> profiles = new HashMap<>();
+
+    //Recent weights of each user that has added one, kept in step with every weight write
+    private final HashMap<String, EntryValidator> validators = new HashMap<>();
+
+    //Statements for the frequent writes are compiled once for the open connection and reused
+    private final HashMap<String, SQLiteStatement> statements = new HashMap<>();
+
+    //Tells the screens which tables and users each write touched
+    private final InvalidationTracker invalidationTracker = new InvalidationTracker();
+
+    //Table and user pairs changed inside a transaction, each reported once it has been committed
+    private final LinkedHashSet<List<String>> uncommitted = new LinkedHashSet<>();
+
+    //Forecast of each user that has added a weight, saved once per insert or batch of writes
+    private final HashMap<String, GoalForecaster> forecasts = new HashMap<>();
+    private final HashSet<String> unsavedForecasts = new HashSet<>();
+
+    //Users whose forecast is worked out again once the batch they were written in is done
+    private final HashSet<String> staleForecasts = new HashSet<>();
+    private int batchDepth;
 
     //Database is a singleton to make retrieval across app easier and uniform
     private Database(Context context) {
         super(context, DATABASE_NAME, null, VERSION);
+
+        //The connection stays open for the life of the app so readers must not block the writer
+        setWriteAheadLoggingEnabled(true);
+
+        //The iteration count measured for this device is read back instead of measured again
+        encryptor.setPreferences(context.getSharedPreferences("encryptor", Context.MODE_PRIVATE));
     }
 
     /**
@@ -51,28 +89,139 @@ public class Database extends SQLiteOpenHelper {
         return database;
     }
 
+    /**
+     * Method to get the tracker that observers register with to hear about writes.
+     * @return The invalidation tracker of the database.
+     */
+    public InvalidationTracker getInvalidationTracker() {
+        return invalidationTracker;
+    }
+
     /**
      * Class to define the column header names of User table.
      */
-    private static final class UserTable {
-        private static final String TABLE = "users";
-        private static final String USER = "username";
-        private static final String PASS = "password";
-        private static final String PHONE = "phoneNumber";
-        private static final String GOAL = "goal";
-        private static final String SALT = "salt";
+    static final class UserTable {
+        static final String TABLE = "users";
+        static final String USER = "username";
+        static final String PASS = "password";
+        static final String PHONE = "phoneNumber";
+        static final String GOAL = "goal";
+        static final String SALT = "salt";
+        static final String ITERATIONS = "iterations";
+        static final String HASH = "hash";
+        static final String FORECAST = "forecast";
     }
 
     /**
      * Class to define the column header names of Weight Table.
      */
-    private static final class WeightTable {
-        private static final String TABLE = "weights";
-        private static final String USER = "user";
-        private static final String DATE = "date";
-        private static final String WEIGHT = "weight";
+    static final class WeightTable {
+        static final String TABLE = "weights";
+        static final String ID = "id";
+        static final String USER = "user";
+        static final String DATE = "date";
+        static final String WEIGHT = "weight";
+        static final String EPOCH_DAY = "epoch_day";
+        static final String DAY_INDEX = "weights_user_epoch_day";
+        static final String STATS_INDEX = "weights_user_epoch_day_weight";
+        static final String ENTRY_INDEX = "weights_user_epoch_day_id_weight";
+    }
+
+    /**
+     * Class to define the column header names of Rollup Table. Each row totals a user's weights
+     * over one day, week or month as numbered by WeightRollup.
+     */
+    static final class RollupTable {
+        static final String TABLE = "rollups";
+        static final String USER = "user";
+        static final String PERIOD = "period";
+        static final String BUCKET = "bucket";
+        static final String SUM = "weight_sum";
+        static final String COUNT = "weight_count";
+        static final String MIN = "weight_min";
+        static final String MAX = "weight_max";
+    }
+
+    /**
+     * Class to define the column header names of Session Table.
+     */
+    static final class SessionTable {
+        static final String TABLE = "sessions";
+        static final String TOKEN_HASH = "token_hash";
+        static final String USER = "user";
+        static final String EXPIRES = "expires";
+    }
+
+    /**
+     * Outcome of checking a password. A password stored the old encrypted way or with fewer
+     * iterations than this device can afford is verified but should be hashed again.
+     */
+    public enum Verification {
+        FAILED,
+        VERIFIED,
+        NEEDS_REHASH
+    }
+
+    /**
+     * Outcome of adding a weight that is checked against the user's recent entries first.
+     */
+    public enum Addition {
+        ADDED,
+        SUSPICIOUS,
+        DUPLICATE
     }
 
+    /**
+     * Class to hold the profile columns of a user that the screens read on every launch.
+     */
+    private static final class Profile {
+        private final int goal;
+        private final String phoneNumber;
+
+        private Profile(int goal, String phoneNumber) {
+            this.goal = goal;
+            this.phoneNumber = phoneNumber;
+        }
+    }
+
+    private static final String INSERT_WEIGHT = "INSERT INTO " + WeightTable.TABLE + " (" +
+            WeightTable.USER + ", " + WeightTable.DATE + ", " + WeightTable.WEIGHT + ", " +
+            WeightTable.EPOCH_DAY + ") VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_WEIGHT = "UPDATE " + WeightTable.TABLE + " SET " +
+            WeightTable.DATE + " = ?, " + WeightTable.WEIGHT + " = ?, " + WeightTable.EPOCH_DAY +
+            " = ? WHERE " + WeightTable.ID + " = ? AND " + WeightTable.USER + " = ?";
+    private static final String DELETE_WEIGHT = "DELETE FROM " + WeightTable.TABLE + " WHERE " +
+            WeightTable.ID + " = ? AND " + WeightTable.USER + " = ?";
+    private static final String UPDATE_GOAL = "UPDATE " + UserTable.TABLE + " SET " +
+            UserTable.GOAL + " = ? WHERE " + UserTable.USER + " = ?";
+    private static final String UPDATE_PHONE = "UPDATE " + UserTable.TABLE + " SET " +
+            UserTable.PHONE + " = ? WHERE " + UserTable.USER + " = ?";
+    private static final String SELECT_SESSION = "SELECT " + SessionTable.USER + " FROM " +
+            SessionTable.TABLE + " WHERE " + SessionTable.TOKEN_HASH + " = ? AND " +
+            SessionTable.EXPIRES + " > ?";
+    private static final String UPDATE_FORECAST = "UPDATE " + UserTable.TABLE + " SET " +
+            UserTable.FORECAST + " = ? WHERE " + UserTable.USER + " = ?";
+    private static final String SELECT_ENTRY_DAY = "SELECT " + WeightTable.EPOCH_DAY + " FROM " +
+            WeightTable.TABLE + " WHERE " + WeightTable.ID + " = ? AND " + WeightTable.USER + " = ?";
+    private static final String ADD_TO_ROLLUP = "UPDATE " + RollupTable.TABLE + " SET " +
+            RollupTable.SUM + " = " + RollupTable.SUM + " + ?, " + RollupTable.COUNT + " = " +
+            RollupTable.COUNT + " + 1, " + RollupTable.MIN + " = MIN(" + RollupTable.MIN + ", ?), " +
+            RollupTable.MAX + " = MAX(" + RollupTable.MAX + ", ?) WHERE " + RollupTable.USER +
+            " = ? AND " + RollupTable.PERIOD + " = ? AND " + RollupTable.BUCKET + " = ?";
+    private static final String INSERT_ROLLUP = "INSERT INTO " + RollupTable.TABLE + " (" +
+            RollupTable.USER + ", " + RollupTable.PERIOD + ", " + RollupTable.BUCKET + ", " +
+            RollupTable.SUM + ", " + RollupTable.COUNT + ", " + RollupTable.MIN + ", " +
+            RollupTable.MAX + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_ROLLUP = "DELETE FROM " + RollupTable.TABLE + " WHERE " +
+            RollupTable.USER + " = ? AND " + RollupTable.PERIOD + " = ? AND " + RollupTable.BUCKET + " = ?";
+    private static final String RECOMPUTE_ROLLUP = "INSERT INTO " + RollupTable.TABLE + " (" +
+            RollupTable.USER + ", " + RollupTable.PERIOD + ", " + RollupTable.BUCKET + ", " +
+            RollupTable.SUM + ", " + RollupTable.COUNT + ", " + RollupTable.MIN + ", " +
+            RollupTable.MAX + ") SELECT " + WeightTable.USER + ", ?, ?, SUM(" + WeightTable.WEIGHT +
+            "), COUNT(*), MIN(" + WeightTable.WEIGHT + "), MAX(" + WeightTable.WEIGHT + ") FROM " +
+            WeightTable.TABLE + " WHERE " + WeightTable.USER + " = ? AND " + WeightTable.EPOCH_DAY +
+            " BETWEEN ? AND ? GROUP BY " + WeightTable.USER;
+
     /**
      * Creates the tables within the database.
      * @param db SQLite database to create the tables.
@@ -84,29 +233,105 @@ public class Database extends SQLiteOpenHelper {
                 UserTable.PASS + " TEXT, " +
                 UserTable.PHONE + " TEXT, " +
                 UserTable.GOAL + " REAL, " +
-                UserTable.SALT + " TEXT)"
+                UserTable.SALT + " TEXT, " +
+                UserTable.ITERATIONS + " INTEGER NOT NULL DEFAULT " + Encryptor.LEGACY_ITERATIONS + ", " +
+                UserTable.HASH + " BLOB, " +
+                UserTable.FORECAST + " BLOB)"
         );
 
+        //Each entry is found by its id while the unique constraint keeps duplicates out
         db.execSQL("CREATE TABLE " + WeightTable.TABLE + " (" +
+                WeightTable.ID + " INTEGER PRIMARY KEY, " +
                 WeightTable.USER + " TEXT, " +
                 WeightTable.DATE + " TEXT, " +
                 WeightTable.WEIGHT + " REAL, " +
-                "PRIMARY KEY (" + WeightTable.USER + ", " + WeightTable.DATE + ", " + WeightTable.WEIGHT + "), " +
+                WeightTable.EPOCH_DAY + " INTEGER, " +
+                "UNIQUE (" + WeightTable.USER + ", " + WeightTable.DATE + ", " + WeightTable.WEIGHT + "), " +
                 "FOREIGN KEY (" + WeightTable.USER + ") REFERENCES " + UserTable.TABLE + "(" + UserTable.USER + "))"
         );
+
+        createDayIndex(db);
+
+        db.execSQL("CREATE TABLE " + SessionTable.TABLE + " (" +
+                SessionTable.TOKEN_HASH + " BLOB PRIMARY KEY, " +
+                SessionTable.USER + " TEXT NOT NULL, " +
+                SessionTable.EXPIRES + " INTEGER NOT NULL)"
+        );
+
+        createRollupTable(db);
     }
 
     /**
-     * This method checks if the version number has been upgraded and recreates the tables.
+     * Creates the table of day, week and month totals.
+     * @param db SQLite database to create the table.
+     */
+    static void createRollupTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + RollupTable.TABLE + " (" +
+                RollupTable.USER + " TEXT NOT NULL, " +
+                RollupTable.PERIOD + " INTEGER NOT NULL, " +
+                RollupTable.BUCKET + " INTEGER NOT NULL, " +
+                RollupTable.SUM + " REAL NOT NULL, " +
+                RollupTable.COUNT + " INTEGER NOT NULL, " +
+                RollupTable.MIN + " REAL NOT NULL, " +
+                RollupTable.MAX + " REAL NOT NULL, " +
+                "PRIMARY KEY (" + RollupTable.USER + ", " + RollupTable.PERIOD + ", " +
+                RollupTable.BUCKET + "))"
+        );
+    }
+
+    /**
+     * Creates the index used to sort and range scan a user's entries by date. Entries of the
+     * same day are ordered by id, so paging and the first and last weight need no sort, and
+     * the weight is included so they are answered from the index alone.
+     * @param db SQLite database to create the index.
+     */
+    private static void createDayIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + WeightTable.ENTRY_INDEX + " ON " +
+                WeightTable.TABLE + " (" + WeightTable.USER + ", " + WeightTable.EPOCH_DAY + ", " +
+                WeightTable.ID + ", " + WeightTable.WEIGHT + ")");
+    }
+
+    /**
+     * This method checks if the version number has been upgraded and runs every registered
+     * migration between the two versions.
      * @param db The database.
      * @param i Previous version number.
      * @param i1 Updated version number.
      */
     @Override
     public void onUpgrade(SQLiteDatabase db, int i, int i1) {
-        db.execSQL("DROP TABLE IF EXISTS " + UserTable.TABLE);
-        db.execSQL("DROP TABLE IF EXISTS " + WeightTable.TABLE);
-        onCreate(db);
+        Migrations.migrate(db, i, i1);
+    }
+
+    /**
+     * Closes the compiled statements along with the connection they belong to.
+     */
+    @Override
+    public void close() {
+        //Same lock order as getStatement so a write in progress cannot deadlock with close
+        synchronized (statements) {
+            for (SQLiteStatement statement : statements.values()) {
+                statement.close();
+            }
+            statements.clear();
+            super.close();
+        }
+    }
+
+    /**
+     * Method to get a compiled statement, compiling it the first time it is used. Callers must
+     * hold the statements lock until they are done with it.
+     * @param sql SQL of the statement.
+     * @return The compiled statement with its bindings cleared.
+     */
+    private SQLiteStatement getStatement(String sql) {
+        SQLiteStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = getWritableDatabase().compileStatement(sql);
+            statements.put(sql, statement);
+        }
+        statement.clearBindings();
+        return statement;
     }
 
     /**
@@ -116,60 +341,178 @@ public class Database extends SQLiteOpenHelper {
      * @return "True" if data successfully entered into database.
      */
     public boolean addUser(String user, String pass) throws NoSuchAlgorithmException,
-            InvalidKeySpecException, InvalidAlgorithmParameterException, NoSuchPaddingException,
-            IllegalBlockSizeException, BadPaddingException, InvalidKeyException {
+            InvalidKeySpecException {
         SQLiteDatabase db = getWritableDatabase();
 
-        //Generates random salt and key to encrypt the password before storage
+        //Generates random salt and hashes the password before storage
         String salt = encryptor.getSalt();
-        SecretKey key = Encryptor.generateKey(pass, salt);
-        String encryptedPass = encryptor.encrypt(pass, key);
+        int iterations = encryptor.getIterations();
 
         ContentValues values = new ContentValues();
         values.put(UserTable.USER, user);
-        values.put(UserTable.PASS, encryptedPass);
+        values.putNull(UserTable.PASS);
+        values.put(UserTable.HASH, Encryptor.hash(pass, salt, iterations));
         values.put(UserTable.PHONE, "EMPTY");
         values.put(UserTable.GOAL, 0);
         values.put(UserTable.SALT, salt);
+        values.put(UserTable.ITERATIONS, iterations);
+        values.put(UserTable.FORECAST, new GoalForecaster().toBytes());
 
         long userId = db.insert(UserTable.TABLE, null, values);
 
+        if (userId != -1) {
+            synchronized (profiles) {
+                profiles.put(user, new Profile(0, "EMPTY"));
+            }
+        }
+
         //Will be true if data added. False if not.
         return userId != -1;
     }
 
     /**
-     * Method used to authenticate user credentials.
+     * Method used to authenticate user credentials. It only reads, so a password that needs
+     * hashing again is reported for the caller to update with a write.
      * @param user Username
      * @param pass Password of user
-     * @return "True" if user successfully authenticated.
+     * @return Whether the user authenticated and if their password should be hashed again.
      */
-    public boolean verifyUser(String user, String pass) throws NoSuchAlgorithmException,
+    public Verification verifyUser(String user, String pass) throws NoSuchAlgorithmException,
             InvalidKeySpecException, InvalidAlgorithmParameterException, NoSuchPaddingException,
             IllegalBlockSizeException, BadPaddingException, InvalidKeyException {
 
         SQLiteDatabase db = getReadableDatabase();
         boolean verified = false;
 
-        Cursor cursor = db.rawQuery("SELECT * FROM " + UserTable.TABLE + " WHERE " +
-                UserTable.USER + " = ?", new String[]{user});
+        boolean legacy = false;
+        int iterations = 0;
+
+        Cursor cursor = db.rawQuery("SELECT " + UserTable.HASH + ", " + UserTable.SALT + ", " +
+                UserTable.ITERATIONS + ", " + UserTable.PASS + " FROM " + UserTable.TABLE +
+                " WHERE " + UserTable.USER + " = ?", new String[]{user});
 
         if (cursor.getCount() == 1) {
             cursor.moveToFirst();
 
-            //Retrieves password salt and authenticates the password
-            String salt = cursor.getString(4);
-            SecretKey key = Encryptor.generateKey(pass, salt);
-            String encryptedPass = encryptor.encrypt(pass, key);
-            if (encryptedPass.equals(cursor.getString(1))) {
-                verified = true;
+            //Retrieves password salt and iteration count and authenticates the password
+            String salt = cursor.getString(1);
+            iterations = cursor.getInt(2);
+            if (!cursor.isNull(0)) {
+                verified = MessageDigest.isEqual(cursor.getBlob(0),
+                        Encryptor.hash(pass, salt, iterations));
+            } else {
+                //Accounts from before hashing still hold the encrypted password
+                legacy = true;
+                SecretKey key = Encryptor.generateKey(pass, salt, iterations);
+                String encryptedPass = encryptor.encrypt(pass, key);
+                verified = encryptedPass.equals(cursor.getString(3));
             }
         }
 
         cursor.close();
-        db.close();
 
-        return verified;
+        if (!verified) {
+            return Verification.FAILED;
+        }
+        return legacy || encryptor.needsRehash(iterations)
+                ? Verification.NEEDS_REHASH : Verification.VERIFIED;
+    }
+
+    /**
+     * Method to store a password hash with a new salt and the current iteration count. Used
+     * after verifyUser reports NEEDS_REHASH.
+     * @param user Username of user.
+     * @param pass Password of user.
+     */
+    public void updatePassword(String user, String pass) throws NoSuchAlgorithmException,
+            InvalidKeySpecException {
+        String salt = encryptor.getSalt();
+        int iterations = encryptor.getIterations();
+
+        ContentValues values = new ContentValues();
+        values.putNull(UserTable.PASS);
+        values.put(UserTable.HASH, Encryptor.hash(pass, salt, iterations));
+        values.put(UserTable.SALT, salt);
+        values.put(UserTable.ITERATIONS, iterations);
+        getWritableDatabase().update(UserTable.TABLE, values, UserTable.USER + " = ?",
+                new String[]{user});
+    }
+
+    /**
+     * Method to start a session for a user who has just logged in. Only a hash of the token is
+     * stored, so the sessions table alone can't be used to log in.
+     * @param user Username of user.
+     * @param lifetimeMillis How long the session lasts.
+     * @param previousToken Token the device held before, or null. It stops working so a
+     *                      replaced token can't be used again.
+     * @return The session token to keep on the device.
+     */
+    public String createSession(String user, long lifetimeMillis, String previousToken)
+            throws NoSuchAlgorithmException {
+        SQLiteDatabase db = getWritableDatabase();
+        long now = System.currentTimeMillis();
+        String token = encryptor.newToken();
+
+        db.beginTransaction();
+        try {
+            //Sessions that have run out are removed whenever a new one starts
+            db.delete(SessionTable.TABLE, SessionTable.EXPIRES + " <= ?",
+                    new String[]{String.valueOf(now)});
+            if (previousToken != null) {
+                SQLiteStatement delete = db.compileStatement("DELETE FROM " + SessionTable.TABLE +
+                        " WHERE " + SessionTable.TOKEN_HASH + " = ?");
+                delete.bindBlob(1, Encryptor.hashToken(previousToken));
+                delete.executeUpdateDelete();
+                delete.close();
+            }
+
+            ContentValues values = new ContentValues();
+            values.put(SessionTable.TOKEN_HASH, Encryptor.hashToken(token));
+            values.put(SessionTable.USER, user);
+            values.put(SessionTable.EXPIRES, now + lifetimeMillis);
+            db.insert(SessionTable.TABLE, null, values);
+            db.setTransactionSuccessful();
+        } finally {
+            endTransaction(db);
+        }
+
+        return token;
+    }
+
+    /**
+     * Method to end a session when the user signs out, so the token can't be used again.
+     * @param token Session token kept on the device.
+     * @return "True" if the session was found and removed.
+     */
+    public boolean endSession(String token) throws NoSuchAlgorithmException {
+        SQLiteStatement delete = getWritableDatabase().compileStatement("DELETE FROM " +
+                SessionTable.TABLE + " WHERE " + SessionTable.TOKEN_HASH + " = ?");
+        delete.bindBlob(1, Encryptor.hashToken(token));
+        try {
+            return delete.executeUpdateDelete() == 1;
+        } finally {
+            delete.close();
+        }
+    }
+
+    /**
+     * Method to find the user of a session token with one lookup on the token's primary key.
+     * @param token Session token kept on the device.
+     * @return Username of the session or null if the token is unknown or has expired.
+     */
+    public String resumeSession(String token) throws NoSuchAlgorithmException {
+        //Compiled here rather than shared so a reader never waits on the statements lock,
+        //which a writer can hold while it is inside a transaction
+        SQLiteStatement select = getReadableDatabase().compileStatement(SELECT_SESSION);
+        select.bindBlob(1, Encryptor.hashToken(token));
+        select.bindLong(2, System.currentTimeMillis());
+        try {
+            return select.simpleQueryForString();
+        } catch (SQLiteDoneException e) {
+            return null;
+        } finally {
+            select.close();
+        }
     }
 
     /**
@@ -180,16 +523,533 @@ public class Database extends SQLiteOpenHelper {
      * @return "True" if data successfully entered to database.
      */
     public boolean addWeight(String user, String date, int weight) {
+        long weightId = insertWeight(user, date, WeightEntry.toEpochDay(date), weight);
+
+        //Will be true if data added. False if not.
+        return weightId != -1;
+    }
+
+    /**
+     * Method to insert a weight record with the reused compiled statement.
+     * @param user Username of user.
+     * @param date Date of weight entry.
+     * @param epochDay Epoch day of the date.
+     * @param weight Amount of weight recorded.
+     * @return Row id of the new entry or -1 if it already exists.
+     */
+    long insertWeight(String user, String date, long epochDay, int weight) {
         SQLiteDatabase db = getWritableDatabase();
+        long weightId;
+
+        synchronized (statements) {
+            db.beginTransaction();
+            try {
+                SQLiteStatement insert = getStatement(INSERT_WEIGHT);
+                insert.bindString(1, user);
+                insert.bindString(2, date);
+                insert.bindLong(3, weight);
+                insert.bindLong(4, epochDay);
+                try {
+                    weightId = insert.executeInsert();
+                } catch (SQLiteConstraintException e) {
+                    //Only this statement failed, so an import around it can still commit
+                    weightId = -1;
+                }
+
+                if (weightId != -1) {
+                    addToRollups(user, epochDay, weight);
+                    addToForecast(user, epochDay, weight);
+                    addToValidator(user, epochDay, weight);
+                }
+                if (batchDepth == 0) {
+                    saveForecasts(db);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                if (batchDepth == 0) {
+                    discardForecasts();
+                }
+                endTransaction(db);
+            }
+        }
+
+        if (weightId != -1) {
+            notifyChanged(WeightTable.TABLE, user);
+        }
+        return weightId;
+    }
+
+    /**
+     * Method to run several writes as one transaction so they are committed together.
+     * @param work Writes to run.
+     */
+    void runInTransaction(Runnable work) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        batchDepth++;
+        try {
+            work.run();
+            if (batchDepth == 1) {
+                saveForecasts(db);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            if (--batchDepth == 0) {
+                discardForecasts();
+            }
+            endTransaction(db);
+        }
+    }
+
+    /**
+     * Method to end a transaction and, once the outermost one is done, report the changes made
+     * inside it. Observers that re-query straight away would otherwise miss them.
+     * @param db The database.
+     */
+    private void endTransaction(SQLiteDatabase db) {
+        db.endTransaction();
+        if (db.inTransaction()) {
+            return;
+        }
+
+        ArrayList<List<String>> changes;
+        synchronized (uncommitted) {
+            changes = new ArrayList<>(uncommitted);
+            uncommitted.clear();
+        }
+        for (List<String> change : changes) {
+            invalidationTracker.notifyChanged(change.get(0), change.get(1));
+        }
+    }
+
+    /**
+     * Method to report a change now, or when the transaction this thread is in ends. A batch
+     * that writes many rows for the same user only queues the change once.
+     * @param table Table that was written.
+     * @param user Username whose rows were written.
+     */
+    private void notifyChanged(String table, String user) {
+        if (getWritableDatabase().inTransaction()) {
+            synchronized (uncommitted) {
+                uncommitted.add(Arrays.asList(table, user));
+            }
+        } else {
+            invalidationTracker.notifyChanged(table, user);
+        }
+    }
+
+    /**
+     * Method to add a new weight to the day, week and month totals it falls in. Callers must
+     * hold the statements lock.
+     * @param user Username of user.
+     * @param epochDay Epoch day of the weight.
+     * @param weight Weight added.
+     */
+    private void addToRollups(String user, long epochDay, int weight) {
+        for (int period : WeightRollup.PERIODS) {
+            long bucket = WeightRollup.bucketOf(period, epochDay);
+
+            SQLiteStatement update = getStatement(ADD_TO_ROLLUP);
+            update.bindLong(1, weight);
+            update.bindLong(2, weight);
+            update.bindLong(3, weight);
+            update.bindString(4, user);
+            update.bindLong(5, period);
+            update.bindLong(6, bucket);
+            if (update.executeUpdateDelete() == 0) {
+                SQLiteStatement insert = getStatement(INSERT_ROLLUP);
+                insert.bindString(1, user);
+                insert.bindLong(2, period);
+                insert.bindLong(3, bucket);
+                insert.bindLong(4, weight);
+                insert.bindLong(5, 1);
+                insert.bindLong(6, weight);
+                insert.bindLong(7, weight);
+                insert.executeInsert();
+            }
+        }
+    }
+
+    /**
+     * Method to work out the totals of every bucket a day falls in again from the entries.
+     * Used after a weight is removed, since the lowest and highest can't be taken back out.
+     * Callers must hold the statements lock.
+     * @param user Username of user.
+     * @param epochDay Epoch day whose buckets changed.
+     */
+    private void recomputeRollups(String user, long epochDay) {
+        for (int period : WeightRollup.PERIODS) {
+            long bucket = WeightRollup.bucketOf(period, epochDay);
+
+            SQLiteStatement delete = getStatement(DELETE_ROLLUP);
+            delete.bindString(1, user);
+            delete.bindLong(2, period);
+            delete.bindLong(3, bucket);
+            delete.executeUpdateDelete();
+
+            SQLiteStatement insert = getStatement(RECOMPUTE_ROLLUP);
+            insert.bindLong(1, period);
+            insert.bindLong(2, bucket);
+            insert.bindString(3, user);
+            insert.bindLong(4, WeightRollup.firstDay(period, bucket));
+            insert.bindLong(5, WeightRollup.lastDay(period, bucket));
+            insert.executeInsert();
+        }
+    }
+
+    /**
+     * Method to add a new weight to the user's cached forecast. The stored forecast is only
+     * read the first time and saved by saveForecasts once the insert or batch is done. Weights
+     * added before the last day in the forecast can't be added in order, so the forecast is
+     * worked out again from every entry instead. Callers must hold the statements lock.
+     * @param user Username of user.
+     * @param epochDay Epoch day of the weight.
+     * @param weight Weight added.
+     */
+    private void addToForecast(String user, long epochDay, int weight) {
+        if (staleForecasts.contains(user)) {
+            return;
+        }
+
+        GoalForecaster forecaster = forecasts.get(user);
+        if (forecaster == null) {
+            forecaster = GoalForecaster.fromBytes(readForecast(getWritableDatabase(), user));
+        }
+        if (forecaster == null || !forecaster.canAdd(epochDay)) {
+            forecasts.remove(user);
+            unsavedForecasts.remove(user);
+            staleForecasts.add(user);
+            return;
+        }
+
+        forecaster.add(epochDay, weight);
+        forecasts.put(user, forecaster);
+        unsavedForecasts.add(user);
+    }
+
+    /**
+     * Method to write the forecasts changed by an insert or batch of writes, one update per
+     * user, and work out the ones that could not be added to. It runs inside the transaction
+     * so the forecasts are committed along with the entries.
+     * @param db The database.
+     */
+    private void saveForecasts(SQLiteDatabase db) {
+        for (String user : staleForecasts) {
+            rebuildForecast(db, user);
+        }
+        synchronized (statements) {
+            SQLiteStatement update = getStatement(UPDATE_FORECAST);
+            for (String user : unsavedForecasts) {
+                update.bindBlob(1, forecasts.get(user).toBytes());
+                update.bindString(2, user);
+                update.executeUpdateDelete();
+            }
+        }
+        staleForecasts.clear();
+        unsavedForecasts.clear();
+    }
+
+    /**
+     * Method to forget the cached forecasts of a transaction that was rolled back, since they
+     * hold weights that were never saved. It does nothing once saveForecasts has run.
+     */
+    private void discardForecasts() {
+        for (String user : unsavedForecasts) {
+            forecasts.remove(user);
+        }
+        staleForecasts.clear();
+        unsavedForecasts.clear();
+    }
+
+    /**
+     * Method to replace a user's stored and cached forecast after an entry is removed or
+     * changed, since a weight can't be taken back out of it. Callers must hold the statements
+     * lock or run on the writer thread.
+     * @param db The database.
+     * @param user Username of user.
+     */
+    private void resetForecast(SQLiteDatabase db, String user) {
+        forecasts.remove(user);
+        unsavedForecasts.remove(user);
+        staleForecasts.remove(user);
+        rebuildForecast(db, user);
+    }
+
+    /**
+     * Method to add a new weight to the user's cached validator. A weight dated before the
+     * latest one drops the cache, since the window holds the most recent entries. Callers
+     * must hold the statements lock.
+     * @param user Username of user.
+     * @param epochDay Epoch day of the weight.
+     * @param weight Weight added.
+     */
+    private void addToValidator(String user, long epochDay, int weight) {
+        synchronized (validators) {
+            EntryValidator validator = validators.get(user);
+            if (validator != null && validator.canAdd(epochDay)) {
+                validator.add(epochDay, weight);
+            } else {
+                dropValidator(user);
+            }
+        }
+    }
+
+    /**
+     * Method to forget a user's cached validator after an entry is removed or changed, since a
+     * value can't be taken back out of the window. It is read again on the next check.
+     * @param user Username of user.
+     */
+    private void dropValidator(String user) {
+        synchronized (validators) {
+            validators.remove(user);
+        }
+    }
+
+    /**
+     * Method to add a weight unless it is far from the user's recent entries. The check and
+     * the insert run as one write, so the recent entries include every earlier write and the
+     * check doesn't wait in line on its own.
+     * @param user Username of user.
+     * @param date Date of weight entry.
+     * @param weight Amount of weight recorded.
+     * @param confirmed "True" if the user has already confirmed a suspicious weight.
+     * @return ADDED, SUSPICIOUS if nothing was added, or DUPLICATE if the entry already exists.
+     */
+    public Addition addCheckedWeight(String user, String date, int weight, boolean confirmed) {
+        if (!confirmed && isSuspiciousWeight(user, weight)) {
+            return Addition.SUSPICIOUS;
+        }
+        return addWeight(user, date, weight) ? Addition.ADDED : Addition.DUPLICATE;
+    }
+
+    /**
+     * Method to check a weight against the user's recent entries before it is added. The
+     * recent entries are read once and then kept up to date by each weight write. It runs on
+     * the writer thread so the entries read can't miss one in progress.
+     * @param user Username of user.
+     * @param weight Weight about to be added.
+     * @return "True" if the weight is far from the recent entries and may be a typo.
+     */
+    private boolean isSuspiciousWeight(String user, int weight) {
+        return getValidator(user).isSuspicious(weight);
+    }
+
+    /**
+     * Method to get the cached validator of a user, reading their latest entries the first time.
+     * The lock is held through the read so a write can never be overwritten by older entries.
+     * @param user Username of user.
+     * @return Validator holding the user's most recent entries.
+     */
+    private EntryValidator getValidator(String user) {
+        synchronized (validators) {
+            EntryValidator validator = validators.get(user);
+            if (validator != null) {
+                return validator;
+            }
+
+            //Newest entries are read from the date index and added oldest first
+            ArrayList<WeightEntry> latest = getEntries(user, Long.MAX_VALUE, Long.MAX_VALUE,
+                    EntryValidator.WINDOW);
+            validator = new EntryValidator();
+            for (int i = latest.size() - 1; i >= 0; i--) {
+                WeightEntry entry = latest.get(i);
+                validator.add(entry.epochDay, entry.weight);
+            }
+            validators.put(user, validator);
+
+            return validator;
+        }
+    }
+
+    /**
+     * Method to read the stored forecast of a user.
+     * @param db The database.
+     * @param user Username of user.
+     * @return The saved forecast or null if it has not been worked out yet.
+     */
+    private static byte[] readForecast(SQLiteDatabase db, String user) {
+        Cursor cursor = db.rawQuery("SELECT " + UserTable.FORECAST + " FROM " + UserTable.TABLE +
+                " WHERE " + UserTable.USER + " = ?", new String[]{user});
+        byte[] bytes = cursor.moveToFirst() ? cursor.getBlob(0) : null;
+        cursor.close();
+        return bytes;
+    }
+
+    /**
+     * Method to work out a user's forecast from all of their entries in date order.
+     * @param db The database.
+     * @param user Username of user.
+     * @return The forecast of every entry.
+     */
+    private static GoalForecaster computeForecast(SQLiteDatabase db, String user) {
+        GoalForecaster forecaster = new GoalForecaster();
+
+        Cursor cursor = db.rawQuery("SELECT " + WeightTable.EPOCH_DAY + ", " + WeightTable.WEIGHT +
+                " FROM " + WeightTable.TABLE + " WHERE " + WeightTable.USER + " = ? AND " +
+                WeightTable.EPOCH_DAY + " IS NOT NULL ORDER BY " + WeightTable.EPOCH_DAY + ", " +
+                WeightTable.ID, new String[]{user});
+        while (cursor.moveToNext()) {
+            forecaster.add(cursor.getLong(0), cursor.getInt(1));
+        }
+        cursor.close();
+
+        return forecaster;
+    }
+
+    /**
+     * Method to replace a user's stored forecast with one worked out from their entries.
+     * @param db The database.
+     * @param user Username of user.
+     */
+    static void rebuildForecast(SQLiteDatabase db, String user) {
         ContentValues values = new ContentValues();
-        values.put(WeightTable.USER, user);
-        values.put(WeightTable.DATE, date);
-        values.put(WeightTable.WEIGHT, weight);
+        values.put(UserTable.FORECAST, computeForecast(db, user).toBytes());
+        db.update(UserTable.TABLE, values, UserTable.USER + " = ?", new String[]{user});
+    }
 
-        long weightId = db.insert(WeightTable.TABLE, null, values);
+    /**
+     * Method to get the forecast of when a user will reach their goal. Every user is given a
+     * stored forecast when they are added or upgraded, so no entries are read.
+     * @param user Username of user.
+     * @return The forecast of the user's entries, or an empty one if the user doesn't exist.
+     */
+    public GoalForecaster getForecast(String user) {
+        GoalForecaster forecaster = GoalForecaster.fromBytes(readForecast(getReadableDatabase(), user));
+        return forecaster != null ? forecaster : new GoalForecaster();
+    }
 
-        //Will be true if data added. False if not.
-        return weightId != -1;
+    /**
+     * Method to find the date of an entry. Callers must hold the statements lock.
+     * @param user Username of user.
+     * @param id Id of weight entry.
+     * @return Epoch day of the entry or null if the user has no entry with that id.
+     */
+    private Long getEntryDay(String user, long id) {
+        SQLiteStatement select = getStatement(SELECT_ENTRY_DAY);
+        select.bindLong(1, id);
+        select.bindString(2, user);
+        try {
+            return select.simpleQueryForLong();
+        } catch (SQLiteDoneException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Method to work out every rollup of a user again from their entries, to repair totals
+     * that no longer match.
+     * @param user Username of user or null for every user.
+     */
+    public void rebuildRollups(String user) {
+        runInTransaction(() -> rebuildRollups(getWritableDatabase(), user));
+        if (user != null) {
+            notifyChanged(WeightTable.TABLE, user);
+        }
+    }
+
+    /**
+     * Method to replace the rollups with totals worked out from the entries. Day totals are
+     * grouped by SQLite and then folded into weeks and months in date order.
+     * @param db The database.
+     * @param user Username of user or null for every user.
+     */
+    static void rebuildRollups(SQLiteDatabase db, String user) {
+        String[] args = user == null ? new String[0] : new String[]{user};
+        String weightUser = user == null ? "" : " AND " + WeightTable.USER + " = ?";
+        String rollupUser = user == null ? "" : " AND " + RollupTable.USER + " = ?";
+
+        db.delete(RollupTable.TABLE, user == null ? null : RollupTable.USER + " = ?",
+                user == null ? null : args);
+        db.execSQL("INSERT INTO " + RollupTable.TABLE + " (" + RollupTable.USER + ", " +
+                RollupTable.PERIOD + ", " + RollupTable.BUCKET + ", " + RollupTable.SUM + ", " +
+                RollupTable.COUNT + ", " + RollupTable.MIN + ", " + RollupTable.MAX + ") SELECT " +
+                WeightTable.USER + ", " + WeightRollup.DAY + ", " + WeightTable.EPOCH_DAY + ", SUM(" +
+                WeightTable.WEIGHT + "), COUNT(*), MIN(" + WeightTable.WEIGHT + "), MAX(" +
+                WeightTable.WEIGHT + ") FROM " + WeightTable.TABLE + " WHERE " + WeightTable.EPOCH_DAY +
+                " IS NOT NULL" + weightUser + " GROUP BY " + WeightTable.USER + ", " +
+                WeightTable.EPOCH_DAY, args);
+
+        SQLiteStatement insert = db.compileStatement(INSERT_ROLLUP);
+        RollupBuilder week = new RollupBuilder(WeightRollup.WEEK, insert);
+        RollupBuilder month = new RollupBuilder(WeightRollup.MONTH, insert);
+
+        Cursor cursor = db.rawQuery("SELECT " + RollupTable.USER + ", " + RollupTable.BUCKET + ", " +
+                RollupTable.SUM + ", " + RollupTable.COUNT + ", " + RollupTable.MIN + ", " +
+                RollupTable.MAX + " FROM " + RollupTable.TABLE + " WHERE " + RollupTable.PERIOD +
+                " = " + WeightRollup.DAY + rollupUser + " ORDER BY " + RollupTable.USER + ", " +
+                RollupTable.BUCKET, args);
+        while (cursor.moveToNext()) {
+            week.add(cursor);
+            month.add(cursor);
+        }
+        cursor.close();
+
+        week.flush();
+        month.flush();
+        insert.close();
+    }
+
+    /**
+     * Class to total day rollups into one longer period while reading them in date order.
+     */
+    private static final class RollupBuilder {
+        private final int period;
+        private final SQLiteStatement insert;
+        private String user;
+        private long bucket;
+        private double sum;
+        private int count;
+        private double min;
+        private double max;
+
+        private RollupBuilder(int period, SQLiteStatement insert) {
+            this.period = period;
+            this.insert = insert;
+        }
+
+        /**
+         * Method to add a day rollup, writing out the current bucket when the day is past it.
+         * @param day Cursor on a row of user, bucket, sum, count, min and max.
+         */
+        private void add(Cursor day) {
+            String dayUser = day.getString(0);
+            long dayBucket = WeightRollup.bucketOf(period, day.getLong(1));
+            if (count > 0 && (dayBucket != bucket || !dayUser.equals(user))) {
+                flush();
+            }
+
+            if (count == 0) {
+                user = dayUser;
+                bucket = dayBucket;
+                min = day.getDouble(4);
+                max = day.getDouble(5);
+            }
+            sum += day.getDouble(2);
+            count += day.getInt(3);
+            min = Math.min(min, day.getDouble(4));
+            max = Math.max(max, day.getDouble(5));
+        }
+
+        /**
+         * Method to write out the bucket being totalled.
+         */
+        private void flush() {
+            if (count == 0) {
+                return;
+            }
+            insert.clearBindings();
+            insert.bindString(1, user);
+            insert.bindLong(2, period);
+            insert.bindLong(3, bucket);
+            insert.bindDouble(4, sum);
+            insert.bindLong(5, count);
+            insert.bindDouble(6, min);
+            insert.bindDouble(7, max);
+            insert.executeInsert();
+
+            sum = 0;
+            count = 0;
+        }
     }
 
     /**
@@ -199,8 +1059,22 @@ public class Database extends SQLiteOpenHelper {
      */
     public boolean clearAll(String user) {
         SQLiteDatabase db = getWritableDatabase();
-        int rowsDeleted = db.delete(WeightTable.TABLE, WeightTable.USER + " = ?", new String[]{user});
-        db.close();
+        int rowsDeleted;
+
+        db.beginTransaction();
+        try {
+            rowsDeleted = db.delete(WeightTable.TABLE, WeightTable.USER + " = ?", new String[]{user});
+            db.delete(RollupTable.TABLE, RollupTable.USER + " = ?", new String[]{user});
+            resetForecast(db, user);
+            db.setTransactionSuccessful();
+        } finally {
+            endTransaction(db);
+        }
+
+        if (rowsDeleted > 0) {
+            dropValidator(user);
+            notifyChanged(WeightTable.TABLE, user);
+        }
 
         return rowsDeleted > 0;
     }
@@ -208,15 +1082,37 @@ public class Database extends SQLiteOpenHelper {
     /**
      * Method to remove a single entry from the database.
      * @param user Username of user.
-     * @param date Date of weight entry.
-     * @param weight Amount of weight entry.
+     * @param id Id of weight entry.
      * @return "True" if single entry deleted.
      */
-    public boolean deleteData(String user, String date, String weight) {
+    public boolean deleteData(String user, long id) {
         SQLiteDatabase db = getWritableDatabase();
-        String whereClause = WeightTable.USER + " = ? AND " + WeightTable.DATE + " = ? AND " + WeightTable.WEIGHT + " = ?";
-        int rowsDeleted = db.delete(WeightTable.TABLE, whereClause, new String[]{user, date, weight});
-        db.close();
+        int rowsDeleted = 0;
+
+        synchronized (statements) {
+            db.beginTransaction();
+            try {
+                Long day = getEntryDay(user, id);
+                if (day != null) {
+                    SQLiteStatement delete = getStatement(DELETE_WEIGHT);
+                    delete.bindLong(1, id);
+                    delete.bindString(2, user);
+                    rowsDeleted = delete.executeUpdateDelete();
+                    if (rowsDeleted == 1) {
+                        recomputeRollups(user, day);
+                        resetForecast(db, user);
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                endTransaction(db);
+            }
+        }
+
+        if (rowsDeleted == 1) {
+            dropValidator(user);
+            notifyChanged(WeightTable.TABLE, user);
+        }
 
         return rowsDeleted == 1;
     }
@@ -224,35 +1120,52 @@ public class Database extends SQLiteOpenHelper {
     /**
      * Method to update an entry in the database.
      * @param user Username of user.
-     * @param date Former date to be changed.
-     * @param weight Former weight to be changed.
+     * @param id Id of weight entry to be changed.
      * @param newDate New date to be updated.
      * @param newWeight New Weight to be updated.
      * @return "True" if weight entry has been changed.
      */
-    public boolean editWeight(String user, String date, String weight, String newDate, String newWeight) {
+    public boolean editWeight(String user, long id, String newDate, int newWeight) {
         SQLiteDatabase db = getWritableDatabase();
-        String whereClause = WeightTable.USER + "= ? AND " + WeightTable.DATE + " = ? AND " + WeightTable.WEIGHT + " = ?";
-        boolean weightEdited = false;
-
-        ContentValues values = new ContentValues();
-        values.put(WeightTable.USER, user);
-        values.put(WeightTable.DATE, newDate);
-        values.put(WeightTable.WEIGHT, newWeight);
-
-        Cursor cursor = db.rawQuery("SELECT * FROM " + WeightTable.TABLE + " WHERE " + whereClause, new String[]{user, date, weight});
-
-        if (cursor.getCount() == 1) {
-            int rowUpdated = db.update(WeightTable.TABLE, values, whereClause, new String[]{user, date, weight});
-            if (rowUpdated == 1) {
-                weightEdited = true;
+        long newDay = WeightEntry.toEpochDay(newDate);
+        int rowUpdated = 0;
+
+        synchronized (statements) {
+            db.beginTransaction();
+            try {
+                Long oldDay = getEntryDay(user, id);
+                if (oldDay != null) {
+                    SQLiteStatement update = getStatement(UPDATE_WEIGHT);
+                    update.bindString(1, newDate);
+                    update.bindLong(2, newWeight);
+                    update.bindLong(3, newDay);
+                    update.bindLong(4, id);
+                    update.bindString(5, user);
+                    try {
+                        rowUpdated = update.executeUpdateDelete();
+                    } catch (SQLiteConstraintException e) {
+                        //The new date and weight already exist as another entry
+                        rowUpdated = 0;
+                    }
+                }
+
+                if (rowUpdated == 1) {
+                    recomputeRollups(user, oldDay);
+                    recomputeRollups(user, newDay);
+                    resetForecast(db, user);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                endTransaction(db);
             }
         }
 
-        cursor.close();
-        db.close();
+        if (rowUpdated == 1) {
+            dropValidator(user);
+            notifyChanged(WeightTable.TABLE, user);
+        }
 
-        return  weightEdited;
+        return rowUpdated == 1;
     }
 
     /**
@@ -262,27 +1175,26 @@ public class Database extends SQLiteOpenHelper {
      * @return "True" if phone number successfully added to the database.
      */
     public boolean addPhoneNumber(String user, String number) {
-        SQLiteDatabase db = getWritableDatabase();
-        boolean numberAdded = false;
+        int rowUpdated;
 
-        ContentValues values = new ContentValues();
-        values.put(UserTable.USER, user);
-        values.put(UserTable.PHONE, number);
-
-        Cursor cursor = db.rawQuery("SELECT * FROM " + UserTable.TABLE + " WHERE " +
-                UserTable.USER + " = ?", new String[]{user});
+        synchronized (statements) {
+            SQLiteStatement update = getStatement(UPDATE_PHONE);
+            update.bindString(1, number);
+            update.bindString(2, user);
+            rowUpdated = update.executeUpdateDelete();
+        }
 
-        if (cursor.getCount() == 1) {
-            int rowUpdated = db.update(UserTable.TABLE, values, UserTable.USER + " = ?", new String[]{user});
-            if (rowUpdated == 1) {
-                numberAdded = true;
+        if (rowUpdated == 1) {
+            synchronized (profiles) {
+                Profile profile = profiles.get(user);
+                if (profile != null) {
+                    profiles.put(user, new Profile(profile.goal, number));
+                }
             }
+            notifyChanged(UserTable.TABLE, user);
         }
 
-        cursor.close();
-        db.close();
-
-        return numberAdded;
+        return rowUpdated == 1;
     }
 
     /**
@@ -292,27 +1204,26 @@ public class Database extends SQLiteOpenHelper {
      * @return "True" if goal successfully added to the database.
      */
     public boolean setGoal(String user, int goal) {
-        SQLiteDatabase db = getWritableDatabase();
-        boolean goalAdded = false;
-
-        ContentValues values = new ContentValues();
-        values.put(UserTable.GOAL, goal);
+        int rowUpdated;
 
-        Cursor cursor = db.rawQuery("SELECT * FROM " + UserTable.TABLE + " WHERE " +
-                UserTable.USER + " = ?", new String[]{user});
+        synchronized (statements) {
+            SQLiteStatement update = getStatement(UPDATE_GOAL);
+            update.bindLong(1, goal);
+            update.bindString(2, user);
+            rowUpdated = update.executeUpdateDelete();
+        }
 
-        //Goal has never been added so add goal
-        if (cursor.getCount() == 1) {
-            int rowUpdated = db.update(UserTable.TABLE, values, UserTable.USER + " = ?", new String[]{user});
-            if (rowUpdated == 1) {
-                goalAdded = true;
+        if (rowUpdated == 1) {
+            synchronized (profiles) {
+                Profile profile = profiles.get(user);
+                if (profile != null) {
+                    profiles.put(user, new Profile(goal, profile.phoneNumber));
+                }
             }
+            notifyChanged(UserTable.TABLE, user);
         }
 
-        cursor.close();
-        db.close();
-
-        return goalAdded;
+        return rowUpdated == 1;
     }
 
     /**
@@ -321,93 +1232,216 @@ public class Database extends SQLiteOpenHelper {
      * @return The weight goal of the user.
      */
     public int getGoal(String user) {
-        SQLiteDatabase db = getReadableDatabase();
-        int goal;
+        Profile profile = getProfile(user);
+        return profile == null ? 0 : profile.goal;
+    }
 
-        Cursor cursor = db.rawQuery("SELECT * FROM " + UserTable.TABLE + " WHERE " +
-                UserTable.USER + " = ?", new String[]{user});
+    /**
+     * Method to get the phone number of the user
+     * @param user Username of user.
+     * @return Phone number of the user.
+     */
+    public String getPhoneNumber(String user) {
+        Profile profile = getProfile(user);
+        return profile == null ? "EMPTY" : profile.phoneNumber;
+    }
 
-        if (cursor.getCount() == 1) {
-            cursor.moveToFirst();
-            goal = cursor.getInt(3);
-        } else {
-            goal = 0;
-        }
+    /**
+     * Method to get the cached profile of a user, reading it from the database the first time.
+     * The lock is held through the read so a write can never be overwritten by an older row.
+     * @param user Username of user.
+     * @return Profile of the user or null if the user does not exist.
+     */
+    private Profile getProfile(String user) {
+        synchronized (profiles) {
+            Profile profile = profiles.get(user);
+            if (profile != null) {
+                return profile;
+            }
 
-        cursor.close();
-        db.close();
+            SQLiteDatabase db = getReadableDatabase();
+            Cursor cursor = db.rawQuery("SELECT " + UserTable.GOAL + ", " + UserTable.PHONE +
+                    " FROM " + UserTable.TABLE + " WHERE " + UserTable.USER + " = ?",
+                    new String[]{user});
+
+            if (cursor.moveToFirst()) {
+                profile = new Profile(cursor.getInt(0), cursor.getString(1));
+                profiles.put(user, profile);
+            }
 
-        return goal;
+            cursor.close();
+
+            return profile;
+        }
     }
 
     /**
-     * Method to get the phone number of the user
+     * Method to look up a single weight entry by its id.
      * @param user Username of user.
-     * @return Phone number of the user.
+     * @param id Id of weight entry.
+     * @return The weight entry or null if the user has no entry with that id.
      */
-    public String getPhoneNumber(String user) {
+    public WeightEntry getEntry(String user, long id) {
         SQLiteDatabase db = getReadableDatabase();
-        String number = "EMPTY";
+        WeightEntry entry = null;
 
-        Cursor cursor = db.rawQuery("SELECT * FROM " + UserTable.TABLE + " WHERE " +
-                UserTable.USER + " = ?", new String[]{user});
+        Cursor cursor = db.rawQuery("SELECT " + WeightTable.EPOCH_DAY + ", " + WeightTable.WEIGHT +
+                " FROM " + WeightTable.TABLE + " WHERE " + WeightTable.ID + " = ? AND " +
+                WeightTable.USER + " = ?", new String[]{String.valueOf(id), user});
 
-        if (cursor.getCount() == 1) {
-            cursor.moveToFirst();
-            number = cursor.getString(2);
+        if (cursor.moveToFirst()) {
+            entry = new WeightEntry(id, cursor.getLong(0), cursor.getInt(1));
         }
 
         cursor.close();
-        db.close();
 
-        return number;
+        return entry;
     }
 
     /**
-     * Method to retrieve all the weights entered for a user.
+     * Method to retrieve one page of a user's weight entries, newest first. The page starts right
+     * after the given date and id so each page is a seek on the date index.
      * @param user Username of user.
-     * @return All weight entries for a user.
+     * @param beforeDay Epoch day of the last entry already loaded or Long.MAX_VALUE.
+     * @param beforeId Id of the last entry already loaded or Long.MAX_VALUE.
+     * @param limit Maximum number of entries to return.
+     * @return The next page of weight entries for a user.
      */
-    public ArrayList<String> getWeights(String user) {
+    public ArrayList<WeightEntry> getEntries(String user, long beforeDay, long beforeId, int limit) {
         SQLiteDatabase db = getReadableDatabase();
-        ArrayList<String> weights = new ArrayList<>();
+        ArrayList<WeightEntry> entries = new ArrayList<>(limit);
 
-        Cursor cursor = db.rawQuery("SELECT * FROM " + WeightTable.TABLE + " WHERE " +
-                WeightTable.USER + " = ? Order BY " + WeightTable.DATE + " DESC", new String[]{user});
+        Cursor cursor = db.rawQuery("SELECT " + WeightTable.ID + ", " + WeightTable.EPOCH_DAY + ", " +
+                WeightTable.WEIGHT + " FROM " + WeightTable.TABLE + " WHERE " + WeightTable.USER +
+                " = ? AND " + WeightTable.EPOCH_DAY + " <= ? AND (" + WeightTable.EPOCH_DAY +
+                " < ? OR " + WeightTable.ID + " < ?) ORDER BY " + WeightTable.EPOCH_DAY + " DESC, " +
+                WeightTable.ID + " DESC LIMIT " + limit, new String[]{user, String.valueOf(beforeDay),
+                String.valueOf(beforeDay), String.valueOf(beforeId)});
 
         if (cursor.moveToFirst()) {
             do {
-                weights.add(String.valueOf(cursor.getInt(2)));
+                entries.add(new WeightEntry(cursor.getLong(0), cursor.getLong(1),
+                        cursor.getInt(2)));
             } while (cursor.moveToNext());
         }
 
         cursor.close();
-        db.close();
 
-        return weights;
+        return entries;
     }
 
     /**
-     * Method to retrieve all the dates of a user's weight entries.
+     * Method to summarize a user's weights over a range of days. Every value is worked out by
+     * SQLite from a range scan of the date index, so no entries are loaded into memory.
      * @param user Username of user.
-     * @return All dates of the user entries.
+     * @param fromDay First epoch day to include.
+     * @param toDay Last epoch day to include.
+     * @return Count, lowest, highest, mean, first and last weight of the range.
      */
-    public ArrayList<String> getDates(String user) {
+    public WeightStats getStats(String user, long fromDay, long toDay) {
         SQLiteDatabase db = getReadableDatabase();
-        ArrayList<String> dates = new ArrayList<>();
+        String range = " FROM " + WeightTable.TABLE + " WHERE " + WeightTable.USER + " = ? AND " +
+                WeightTable.EPOCH_DAY + " BETWEEN ? AND ?";
+        String from = String.valueOf(fromDay);
+        String to = String.valueOf(toDay);
+
+        Cursor cursor = db.rawQuery("SELECT COUNT(*), MIN(" + WeightTable.WEIGHT + "), MAX(" +
+                WeightTable.WEIGHT + "), AVG(" + WeightTable.WEIGHT + "), " +
+                "(SELECT " + WeightTable.WEIGHT + range + " ORDER BY " + WeightTable.EPOCH_DAY +
+                ", " + WeightTable.ID + " LIMIT 1), " +
+                "(SELECT " + WeightTable.WEIGHT + range + " ORDER BY " + WeightTable.EPOCH_DAY +
+                " DESC, " + WeightTable.ID + " DESC LIMIT 1)" + range,
+                new String[]{user, from, to, user, from, to, user, from, to});
+
+        WeightStats stats = WeightStats.EMPTY;
+        if (cursor.moveToFirst() && cursor.getInt(0) > 0) {
+            stats = new WeightStats(cursor.getInt(0), cursor.getInt(1), cursor.getInt(2),
+                    cursor.getDouble(3), cursor.getInt(4), cursor.getInt(5));
+        }
 
-        Cursor cursor = db.rawQuery("SELECT * FROM " + WeightTable.TABLE + " WHERE " +
-                WeightTable.USER + " = ? Order BY " + WeightTable.DATE + " DESC", new String[]{user});
+        cursor.close();
 
-        if (cursor.moveToFirst()) {
-            do {
-                dates.add(cursor.getString(1));
-            } while (cursor.moveToNext());
+        return stats;
+    }
+
+    /**
+     * Method to find the date of a user's first entry with one lookup in the date index.
+     * @param user Username of user.
+     * @return Epoch day of the first entry or null if the user has no entries.
+     */
+    public Long getFirstDay(String user) {
+        return getEdgeDay(user, "MIN");
+    }
+
+    /**
+     * Method to find the date of a user's last entry with one lookup in the date index.
+     * @param user Username of user.
+     * @return Epoch day of the last entry or null if the user has no entries.
+     */
+    public Long getLastDay(String user) {
+        return getEdgeDay(user, "MAX");
+    }
+
+    private Long getEdgeDay(String user, String aggregate) {
+        //A single MIN or MAX over the index is read from one end instead of scanning it
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT " + aggregate + "(" +
+                WeightTable.EPOCH_DAY + ") FROM " + WeightTable.TABLE + " WHERE " +
+                WeightTable.USER + " = ?", new String[]{user});
+        Long day = cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0) : null;
+        cursor.close();
+        return day;
+    }
+
+    /**
+     * Method to read the totals of a user's weights for each day, week or month in a range.
+     * Long ranges read one row per bucket instead of every entry.
+     * @param user Username of user.
+     * @param period WeightRollup.DAY, WEEK or MONTH.
+     * @param fromDay First epoch day to include.
+     * @param toDay Last epoch day to include.
+     * @return Totals of each bucket that has entries, oldest first.
+     */
+    public ArrayList<WeightRollup> getRollups(String user, int period, long fromDay, long toDay) {
+        SQLiteDatabase db = getReadableDatabase();
+        ArrayList<WeightRollup> rollups = new ArrayList<>();
+
+        Cursor cursor = db.rawQuery("SELECT " + RollupTable.BUCKET + ", " + RollupTable.COUNT + ", " +
+                RollupTable.SUM + ", " + RollupTable.MIN + ", " + RollupTable.MAX + " FROM " +
+                RollupTable.TABLE + " WHERE " + RollupTable.USER + " = ? AND " + RollupTable.PERIOD +
+                " = ? AND " + RollupTable.BUCKET + " BETWEEN ? AND ? ORDER BY " + RollupTable.BUCKET,
+                new String[]{user, String.valueOf(period),
+                        String.valueOf(WeightRollup.bucketOf(period, fromDay)),
+                        String.valueOf(WeightRollup.bucketOf(period, toDay))});
+
+        while (cursor.moveToNext()) {
+            rollups.add(new WeightRollup(period, cursor.getLong(0), cursor.getInt(1),
+                    cursor.getDouble(2), cursor.getInt(3), cursor.getInt(4)));
         }
 
         cursor.close();
-        db.close();
 
-        return dates;
+        return rollups;
+    }
+
+    /**
+     * Method to open a cursor over weight entries for streaming them out one row at a time.
+     * The cursor returns the user, epoch day and weight of each entry in date order.
+     * @param user Username of user or null for every user.
+     * @param fromDay First epoch day to include.
+     * @param toDay Last epoch day to include.
+     * @return A cursor that the caller must close.
+     */
+    public Cursor queryEntries(String user, long fromDay, long toDay) {
+        SQLiteDatabase db = getReadableDatabase();
+        String columns = "SELECT " + WeightTable.USER + ", " + WeightTable.EPOCH_DAY + ", " +
+                WeightTable.WEIGHT + " FROM " + WeightTable.TABLE + " WHERE ";
+        String days = WeightTable.EPOCH_DAY + " BETWEEN ? AND ?";
+
+        if (user == null) {
+            return db.rawQuery(columns + days + " ORDER BY " + WeightTable.USER + ", " +
+                    WeightTable.EPOCH_DAY, new String[]{String.valueOf(fromDay), String.valueOf(toDay)});
+        }
+        return db.rawQuery(columns + WeightTable.USER + " = ? AND " + days + " ORDER BY " +
+                WeightTable.EPOCH_DAY, new String[]{user, String.valueOf(fromDay), String.valueOf(toDay)});
     }
 }
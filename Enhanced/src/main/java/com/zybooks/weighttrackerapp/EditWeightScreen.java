@@ -24,10 +24,9 @@ import java.util.Locale;
 public class EditWeightScreen extends AppCompatActivity {
 
     final Calendar myCalendar= Calendar.getInstance();
-    private Database database;
+    private AsyncDatabase database;
     private String user;
-    private String weight;
-    private String date;
+    private long id;
     private EditText weightText;
     private EditText dateText;
 
@@ -36,19 +35,25 @@ public class EditWeightScreen extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_edit_weight_screen);
 
-        //Retrieve individual items data
+        //Retrieve the id of the entry being edited
         Intent intent = getIntent();
         user = intent.getStringExtra("user_key");
-        date = intent.getStringExtra("date_key");
-        weight = intent.getStringExtra("weight_key");
+        id = intent.getLongExtra("id_key", -1);
 
-        //Set the forms equal to retrieved data
         weightText = findViewById(R.id.weight);
-        weightText.setText(weight);
         dateText = findViewById(R.id.date);
-        dateText.setText(date);
 
-        database = Database.getInstance(getApplicationContext());
+        //Set the forms equal to the stored entry
+        database = AsyncDatabase.getInstance(getApplicationContext());
+        database.read(db -> db.getEntry(user, id), entry -> {
+            if (entry == null) {
+                Toast.makeText(getApplicationContext(), "Entry Not Found", Toast.LENGTH_SHORT).show();
+                finish();
+                return;
+            }
+            weightText.setText(String.valueOf(entry.weight));
+            dateText.setText(WeightEntry.formatDate(entry.epochDay));
+        });
         Button deleteButton = findViewById(R.id.delete_weight_button);
         deleteButton.setOnClickListener(view -> deleteData());
         Button editButton = findViewById(R.id.edit_weight_button);
@@ -78,29 +83,46 @@ public class EditWeightScreen extends AppCompatActivity {
      * Method to edit the current weight record and return the user to the weight screen.
      */
     private void editData() {
-        String newWeight = weightText.getText().toString();
         String newDate = dateText.getText().toString();
-        if (database.editWeight(user, date, weight, newDate, newWeight)) {
-            Toast.makeText(getApplicationContext(), "Entry Changed", Toast.LENGTH_SHORT).show();
-            Intent intent = new Intent(this, WeightScreen.class);
-            intent.putExtra("user_key", user);
-            startActivity(intent);
-        } else {
-            Toast.makeText(getApplicationContext(), "Error", Toast.LENGTH_SHORT).show();
+        int newWeight = 0;
+        try {
+            newWeight = Integer.parseInt(weightText.getText().toString().trim());
+        } catch (NumberFormatException e) {
+            //Left at 0 so the check below asks for a weight
         }
+
+        //Checks to make sure there is a valid entry
+        if (newDate.isEmpty()) {
+            Toast.makeText(EditWeightScreen.this, "Please enter a date", Toast.LENGTH_LONG).show();
+            return;
+        }
+        if (newWeight <= 0) {
+            Toast.makeText(EditWeightScreen.this, "Please enter a weight", Toast.LENGTH_LONG).show();
+            return;
+        }
+
+        int entryWeight = newWeight;
+        database.write(db -> db.editWeight(user, id, newDate, entryWeight), edited -> {
+            if (edited) {
+                Toast.makeText(getApplicationContext(), "Entry Changed", Toast.LENGTH_SHORT).show();
+                finish();
+            } else {
+                Toast.makeText(getApplicationContext(), "Error", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     /**
      * Method to delete the weight entry
      */
     private void deleteData() {
-        if (database.deleteData(user,date,weight)) {
-            Toast.makeText(getApplicationContext(), "Entry Deleted", Toast.LENGTH_SHORT).show();
-            Intent intent = new Intent(this, WeightScreen.class);
-            intent.putExtra("user_key", user);
-            startActivity(intent);
-        } else {
-            Toast.makeText(getApplicationContext(), "Error On Deletion", Toast.LENGTH_SHORT).show();
-        }
+        database.write(db -> db.deleteData(user, id), deleted -> {
+            if (deleted) {
+                Toast.makeText(getApplicationContext(), "Entry Deleted", Toast.LENGTH_SHORT).show();
+                finish();
+            } else {
+                Toast.makeText(getApplicationContext(), "Error On Deletion", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 }
\ No newline at end of file
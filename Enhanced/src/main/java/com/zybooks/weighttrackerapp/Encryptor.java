@@ -8,12 +8,15 @@
 package com.zybooks.weighttrackerapp;
 
 import android.annotation.SuppressLint;
+import android.content.SharedPreferences;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.KeySpec;
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
@@ -26,30 +29,83 @@ import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
 
 /**
- * This class is used to encrypt the user passwords. It is implemented as a singleton.
+ * This class is used to hash the user passwords. It is implemented as a singleton and is safe
+ * to use from several threads at once.
  */
 public class Encryptor {
-    private static Encryptor encryptor;
-    private static final IvParameterSpec iv = generateIv();
+    //Count used before each user had their own, still used to check the older accounts
+    static final int LEGACY_ITERATIONS = 1000;
+    private static final long TARGET_MILLIS = 250;
+    private static final int PROBE_ITERATIONS = 10000;
+    private static final String ITERATIONS_KEY = "iterations";
+
+    //Factories and ciphers are not thread safe, so each thread looks them up once and keeps them
+    private static final ThreadLocal<SecretKeyFactory> factories = new ThreadLocal<>();
+    private static final ThreadLocal<Cipher> ciphers = new ThreadLocal<>();
+
+    private volatile int iterations;
+    //Keeps the measured count between launches so the device is only measured once
+    private volatile SharedPreferences preferences;
+
+    /**
+     * Holds the instance. Creating it does no crypto work, so it is safe to get on any thread.
+     */
+    private static final class Holder {
+        private static final Encryptor INSTANCE = new Encryptor();
+    }
 
     /**
-     * Method to create a random initialization vector for encryption.
-     * @return An initialization vector.
+     * Holds the random values. They are created the first time a salt, token or legacy
+     * password is needed on a database thread rather than when the database class loads.
      */
-    private static IvParameterSpec generateIv() {
-        byte[] iv = new byte[16];
-        new SecureRandom().nextBytes(iv);
-        return new IvParameterSpec(iv);
+    private static final class Randoms {
+        private static final SecureRandom random = new SecureRandom();
+        private static final IvParameterSpec iv = generateIv();
+
+        /**
+         * Method to create a random initialization vector for encryption.
+         * @return An initialization vector.
+         */
+        private static IvParameterSpec generateIv() {
+            byte[] iv = new byte[16];
+            random.nextBytes(iv);
+            return new IvParameterSpec(iv);
+        }
     }
 
     private Encryptor() {
     }
 
-    public static synchronized Encryptor getInstance() {
-        if (encryptor == null) {
-            encryptor = new Encryptor();
+    public static Encryptor getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Method to get this thread's PBKDF2 key factory, looking it up the first time.
+     * @return The key factory.
+     */
+    private static SecretKeyFactory getFactory() throws NoSuchAlgorithmException {
+        SecretKeyFactory factory = factories.get();
+        if (factory == null) {
+            //Creates a key factory that will use SHA256
+            factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+            factories.set(factory);
         }
-        return encryptor;
+        return factory;
+    }
+
+    /**
+     * Method to get this thread's AES cipher, looking it up the first time.
+     * @return The cipher.
+     */
+    @SuppressLint("GetInstance")
+    private static Cipher getCipher() throws NoSuchAlgorithmException, NoSuchPaddingException {
+        Cipher cipher = ciphers.get();
+        if (cipher == null) {
+            cipher = Cipher.getInstance("AES");
+            ciphers.set(cipher);
+        }
+        return cipher;
     }
 
     /**
@@ -57,30 +113,140 @@ public class Encryptor {
      * @return An encryption salt
      */
     public String getSalt() {
-        SecureRandom random = new SecureRandom();
         byte[] salt = new byte[16];
-        random.nextBytes(salt);
+        Randoms.random.nextBytes(salt);
         return Base64.getEncoder().encodeToString(salt);
     }
 
     /**
-     * Method to generate a secret key
+     * Method to generate a random session token.
+     * @return A URL safe token with 256 bits of randomness.
+     */
+    public String newToken() {
+        byte[] token = new byte[32];
+        Randoms.random.nextBytes(token);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    /**
+     * Method to hash a session token for storage. Tokens are long and random so one fast
+     * SHA-256 pass is enough, unlike passwords.
+     * @param token Session token.
+     * @return SHA-256 hash of the token.
+     */
+    public static byte[] hashToken(String token) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Method to set where the measured iteration count is saved between launches.
+     * @param preferences Preferences to save the count in.
+     */
+    public void setPreferences(SharedPreferences preferences) {
+        this.preferences = preferences;
+    }
+
+    /**
+     * Method to get the iteration count that makes one hash take about the target login time
+     * on this device. The device is measured the first time the app ever needs the count and
+     * the result is saved, so later launches read it instead of measuring again.
+     * @return Iteration count for new hashes.
+     */
+    public int getIterations() throws NoSuchAlgorithmException, InvalidKeySpecException {
+        if (iterations == 0) {
+            synchronized (this) {
+                if (iterations == 0) {
+                    SharedPreferences saved = preferences;
+                    int count = saved == null ? 0 : saved.getInt(ITERATIONS_KEY, 0);
+                    if (count == 0) {
+                        count = calibrate();
+                        if (saved != null) {
+                            saved.edit().putInt(ITERATIONS_KEY, count).apply();
+                        }
+                    }
+                    iterations = count;
+                }
+            }
+        }
+        return iterations;
+    }
+
+    /**
+     * Method to check if a hash made with an older count should be made again at the current one.
+     * @param storedIterations Iteration count the stored hash was made with.
+     * @return "True" if the stored count is well below the count for this device.
+     */
+    public boolean needsRehash(int storedIterations) throws NoSuchAlgorithmException,
+            InvalidKeySpecException {
+        //Some slack so small differences between measurements don't rehash on every login
+        return storedIterations < getIterations() - getIterations() / 5;
+    }
+
+    /**
+     * Method to time a hash of known cost and scale it to the target time.
+     * @return Iteration count that takes about the target time, rounded to the nearest thousand.
+     */
+    private static int calibrate() throws NoSuchAlgorithmException, InvalidKeySpecException {
+        String salt = "calibration";
+
+        //The first hash also loads the provider so it is left out of the timing
+        hash("calibration", salt, LEGACY_ITERATIONS);
+        long start = System.nanoTime();
+        hash("calibration", salt, PROBE_ITERATIONS);
+        long elapsed = Math.max(System.nanoTime() - start, 1);
+
+        long scaled = PROBE_ITERATIONS * TARGET_MILLIS * 1_000_000L / elapsed;
+        int rounded = (int) Math.min(Integer.MAX_VALUE - 1000, Math.round(scaled / 1000.0) * 1000);
+        return Math.max(rounded, PROBE_ITERATIONS);
+    }
+
+    /**
+     * Method to hash a password for storage. The hash is compared directly at login, so no
+     * cipher or encoding work is needed.
+     * @param pass Password to hash.
+     * @param salt Random salt to be added to the password.
+     * @param iterations Number of PBKDF2 iterations.
+     * @return A 256 bit hash of the salt and password combination.
+     */
+    public static byte[] hash(String pass, String salt, int iterations)
+            throws NoSuchAlgorithmException, InvalidKeySpecException {
+        PBEKeySpec spec = new PBEKeySpec(pass.toCharArray(), salt.getBytes(), iterations, 256);
+        try {
+            return getFactory().generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * Method to generate a secret key with the legacy iteration count
      * @param pass Password to be encrypted.
      * @param salt Random salt to be added to the password.
      * @return A secret key based on the salt and password combination.
      */
     public static SecretKey generateKey(String pass, String salt)
             throws NoSuchAlgorithmException, InvalidKeySpecException {
+        return generateKey(pass, salt, LEGACY_ITERATIONS);
+    }
+
+    /**
+     * Method to generate a secret key
+     * @param pass Password to be encrypted.
+     * @param salt Random salt to be added to the password.
+     * @param iterations Number of PBKDF2 iterations.
+     * @return A secret key based on the salt and password combination.
+     */
+    public static SecretKey generateKey(String pass, String salt, int iterations)
+            throws NoSuchAlgorithmException, InvalidKeySpecException {
 
-        //Creates a key factory that will use SHA256
-        SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
-        KeySpec spec = new PBEKeySpec(pass.toCharArray(), salt.getBytes(), 1000, 128);
+        KeySpec spec = new PBEKeySpec(pass.toCharArray(), salt.getBytes(), iterations, 128);
 
-        return new SecretKeySpec(factory.generateSecret(spec).getEncoded(), "AES");
+        return new SecretKeySpec(getFactory().generateSecret(spec).getEncoded(), "AES");
     }
 
     /**
-     * Method to return an encrypted password string
+     * Method to return an encrypted password string. Only used to check accounts stored
+     * before passwords were hashed.
      * @param pass Password to encrypt.
      * @param key Secret key based on password salt.
      * @return Encrypted password string.
@@ -89,8 +255,8 @@ public class Encryptor {
             NoSuchAlgorithmException, InvalidAlgorithmParameterException, InvalidKeyException,
             IllegalBlockSizeException, BadPaddingException {
 
-        @SuppressLint("GetInstance") Cipher cipher = Cipher.getInstance("AES");
-        cipher.init(Cipher.ENCRYPT_MODE, key, iv);
+        Cipher cipher = getCipher();
+        cipher.init(Cipher.ENCRYPT_MODE, key, Randoms.iv);
         byte[] cipherText = cipher.doFinal(pass.getBytes());
 
         return Base64.getEncoder().encodeToString(cipherText);
@@ -0,0 +1,77 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Catch weights that are likely typos before they are saved
+ */
+
+package com.zybooks.weighttrackerapp;
+
+/**
+ * The EntryValidator class compares a new weight with the user's most recent entries. It keeps
+ * the rolling median of the recent weights and the rolling median of how far each one was from
+ * the median when it was added, which stands in for the median absolute deviation (MAD). A
+ * weight is suspicious when it is much further from the median than the recent entries were.
+ */
+public final class EntryValidator {
+    //Number of recent entries compared against
+    static final int WINDOW = 30;
+
+    private static final int MIN_ENTRIES = 5;
+    //Cut off for the distance from the median in units of the scaled MAD
+    private static final double THRESHOLD = 3.5;
+    //Scales the MAD to match a standard deviation for normally spread weights
+    private static final double MAD_SCALE = 1.4826;
+    //Smallest spread allowed as a share of the median, so steady weights still allow some change
+    private static final double MIN_SPREAD = 0.02;
+
+    private final RollingMedian weights = new RollingMedian(WINDOW);
+    private final RollingMedian deviations = new RollingMedian(WINDOW);
+    private long lastDay = Long.MIN_VALUE;
+
+    /**
+     * Method to check if a day can be added. The window holds the latest entries, so entries
+     * before the last day added mean it has to be loaded again.
+     * @param epochDay Epoch day of the entry.
+     * @return "True" if the entry can be added.
+     */
+    public boolean canAdd(long epochDay) {
+        return epochDay >= lastDay;
+    }
+
+    /**
+     * Method to add the next entry in date order to the window.
+     * @param epochDay Epoch day of the entry.
+     * @param weight Weight of the entry.
+     */
+    public void add(long epochDay, int weight) {
+        if (weights.size() > 0) {
+            deviations.add((int) Math.round(Math.abs(weight - weights.getMedian())));
+        }
+        weights.add(weight);
+        lastDay = epochDay;
+    }
+
+    /**
+     * Method to check if a weight is far enough from the recent entries to likely be a typo.
+     * @param weight Weight about to be entered.
+     * @return "True" if the weight should be confirmed by the user.
+     */
+    public boolean isSuspicious(int weight) {
+        if (weights.size() < MIN_ENTRIES) {
+            return false;
+        }
+
+        double median = weights.getMedian();
+        double spread = Math.max(MAD_SCALE * deviations.getMedian(), MIN_SPREAD * median);
+        return Math.abs(weight - median) > THRESHOLD * spread;
+    }
+
+    /**
+     * Method to get the median of the recent entries.
+     * @return Median weight.
+     */
+    public double getMedian() {
+        return weights.getMedian();
+    }
+}
@@ -0,0 +1,206 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Estimate the day a user will reach their weight goal
+ */
+
+package com.zybooks.weighttrackerapp;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The GoalForecaster class keeps a running summary of a user's weights that is updated in
+ * constant time as each entry is added in date order. It holds the sums of a linear regression
+ * whose older days count for less, along with Holt smoothed level and trend. The two estimates
+ * of how fast the weight is changing are averaged to project when the goal will be reached.
+ */
+public final class GoalForecaster {
+    //Returned when there is no goal or the weight is not moving towards it
+    public static final long NO_ETA = Long.MIN_VALUE;
+
+    //A day's weight counts half as much in the regression this many days later
+    private static final double HALF_LIFE_DAYS = 30;
+    private static final double LEVEL_SMOOTHING = 0.3;
+    private static final double TREND_SMOOTHING = 0.1;
+    private static final int MIN_ENTRIES = 5;
+    private static final int MIN_DAYS = 7;
+    //Forecasts further out than this are too unsure to show
+    private static final int MAX_ETA_DAYS = 3 * 365;
+
+    private static final byte FORMAT = 1;
+    private static final int BYTES = 1 + Integer.BYTES + 2 * Long.BYTES + 7 * Double.BYTES;
+
+    private int count;
+    private long firstDay;
+    private long lastDay;
+
+    //Weighted sums of the regression with x counted in days back from the last day
+    private double sumWeights;
+    private double sumX;
+    private double sumY;
+    private double sumXX;
+    private double sumXY;
+
+    private double level;
+    private double trend;
+
+    /**
+     * Method to check if a day can be added without working the forecast out again. Entries
+     * must arrive in date order since the smoothing depends on it.
+     * @param epochDay Epoch day of the new entry.
+     * @return "True" if the entry can be added.
+     */
+    public boolean canAdd(long epochDay) {
+        return count == 0 || epochDay >= lastDay;
+    }
+
+    /**
+     * Method to add the next entry to the forecast.
+     * @param epochDay Epoch day of the entry. Must not be before the last day added.
+     * @param weight Weight of the entry.
+     */
+    public void add(long epochDay, int weight) {
+        if (!canAdd(epochDay)) {
+            throw new IllegalArgumentException("Entries must be added in date order");
+        }
+
+        if (count == 0) {
+            firstDay = epochDay;
+            level = weight;
+            trend = 0;
+        } else {
+            long days = epochDay - lastDay;
+            if (days > 0) {
+                //Move x back to the new last day and fade the older days
+                double decay = Math.pow(0.5, days / HALF_LIFE_DAYS);
+                sumXX = decay * (sumXX - 2 * days * sumX + (double) days * days * sumWeights);
+                sumXY = decay * (sumXY - days * sumY);
+                sumX = decay * (sumX - days * sumWeights);
+                sumY = decay * sumY;
+                sumWeights = decay * sumWeights;
+            }
+
+            double previous = level;
+            level = LEVEL_SMOOTHING * weight + (1 - LEVEL_SMOOTHING) * (level + trend * days);
+            if (days > 0) {
+                trend = TREND_SMOOTHING * (level - previous) / days + (1 - TREND_SMOOTHING) * trend;
+            }
+        }
+
+        //The new entry sits at x = 0, so only the weight and weight totals change
+        sumWeights += 1;
+        sumY += weight;
+        lastDay = epochDay;
+        count++;
+    }
+
+    /**
+     * Method to get how much the weight is changing each day according to the regression.
+     * @return Slope of the regression or 0 if every entry is on the same day.
+     */
+    public double getSlope() {
+        double spread = sumWeights * sumXX - sumX * sumX;
+        if (spread <= 1e-9) {
+            return 0;
+        }
+        return (sumWeights * sumXY - sumX * sumY) / spread;
+    }
+
+    /**
+     * Method to get the smoothed weight as of the last entry.
+     * @return Smoothed weight.
+     */
+    public double getLevel() {
+        return level;
+    }
+
+    /**
+     * Method to get the smoothed change in weight per day.
+     * @return Smoothed trend.
+     */
+    public double getTrend() {
+        return trend;
+    }
+
+    /**
+     * Method to get the number of entries added.
+     * @return Number of entries.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Method to project the day the goal will be reached from the current pace.
+     * @param goal Weight goal of the user or 0 if no goal set.
+     * @return Epoch day the goal is expected on, or NO_ETA if it can't be estimated.
+     */
+    public long getEtaDay(int goal) {
+        if (goal <= 0 || count < MIN_ENTRIES || lastDay - firstDay < MIN_DAYS) {
+            return NO_ETA;
+        }
+
+        double remaining = goal - level;
+        if (Math.abs(remaining) < 0.5) {
+            return lastDay;
+        }
+
+        //Both estimates must agree the weight is heading towards the goal
+        double slope = getSlope();
+        if (Math.signum(slope) != Math.signum(remaining) || Math.signum(trend) != Math.signum(remaining)) {
+            return NO_ETA;
+        }
+
+        double days = remaining / ((slope + trend) / 2);
+        if (days > MAX_ETA_DAYS) {
+            return NO_ETA;
+        }
+        return lastDay + (long) Math.ceil(days);
+    }
+
+    /**
+     * Method to save the forecast so it can be stored with the user.
+     * @return The forecast as bytes.
+     */
+    public byte[] toBytes() {
+        return ByteBuffer.allocate(BYTES)
+                .put(FORMAT)
+                .putInt(count)
+                .putLong(firstDay)
+                .putLong(lastDay)
+                .putDouble(sumWeights)
+                .putDouble(sumX)
+                .putDouble(sumY)
+                .putDouble(sumXX)
+                .putDouble(sumXY)
+                .putDouble(level)
+                .putDouble(trend)
+                .array();
+    }
+
+    /**
+     * Method to load a forecast saved by toBytes.
+     * @param bytes Saved forecast.
+     * @return The forecast or null if the bytes are missing or from another format.
+     */
+    public static GoalForecaster fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != BYTES || bytes[0] != FORMAT) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, BYTES - 1);
+        GoalForecaster forecaster = new GoalForecaster();
+        forecaster.count = buffer.getInt();
+        forecaster.firstDay = buffer.getLong();
+        forecaster.lastDay = buffer.getLong();
+        forecaster.sumWeights = buffer.getDouble();
+        forecaster.sumX = buffer.getDouble();
+        forecaster.sumY = buffer.getDouble();
+        forecaster.sumXX = buffer.getDouble();
+        forecaster.sumXY = buffer.getDouble();
+        forecaster.level = buffer.getDouble();
+        forecaster.trend = buffer.getDouble();
+        return forecaster;
+    }
+}
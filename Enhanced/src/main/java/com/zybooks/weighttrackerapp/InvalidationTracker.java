@@ -0,0 +1,124 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Let screens know when the data they show has been changed
+ */
+
+package com.zybooks.weighttrackerapp;
+
+import android.os.Handler;
+import android.os.Looper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The InvalidationTracker class records which tables and users each database write touched.
+ * Changes are gathered until the main thread is free and then delivered once to each observer
+ * whose tables and user were written.
+ */
+public final class InvalidationTracker {
+
+    private final CopyOnWriteArrayList<Registration> registrations = new CopyOnWriteArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    //Tables changed for each user since the last delivery
+    private final HashMap<String, Set<String>> pending = new HashMap<>();
+    private boolean deliveryPosted;
+
+    /**
+     * Method to start observing changes to some tables for one user.
+     * @param user Username whose changes are wanted.
+     * @param observer Observer called on the main thread.
+     * @param tables Tables to observe.
+     */
+    public void addObserver(String user, Observer observer, String... tables) {
+        registrations.add(new Registration(user, observer, new HashSet<>(Arrays.asList(tables))));
+    }
+
+    /**
+     * Method to stop observing changes.
+     * @param observer Observer that was added.
+     */
+    public void removeObserver(Observer observer) {
+        for (Registration registration : registrations) {
+            if (registration.observer == observer) {
+                registrations.remove(registration);
+            }
+        }
+    }
+
+    /**
+     * Method called by the database after a successful write. It is safe to call from any thread.
+     * @param table Table that was written.
+     * @param user Username whose rows were written.
+     */
+    void notifyChanged(String table, String user) {
+        synchronized (pending) {
+            Set<String> tables = pending.get(user);
+            if (tables == null) {
+                tables = new HashSet<>();
+                pending.put(user, tables);
+            }
+            tables.add(table);
+
+            if (!deliveryPosted) {
+                deliveryPosted = true;
+                mainHandler.post(this::deliver);
+            }
+        }
+    }
+
+    /**
+     * Method to hand the gathered changes to the observers that care about them.
+     */
+    private void deliver() {
+        HashMap<String, Set<String>> changes;
+        synchronized (pending) {
+            changes = new HashMap<>(pending);
+            pending.clear();
+            deliveryPosted = false;
+        }
+
+        for (Registration registration : registrations) {
+            Set<String> tables = changes.get(registration.user);
+            if (tables == null) {
+                continue;
+            }
+
+            List<String> changed = new ArrayList<>();
+            for (String table : tables) {
+                if (registration.tables.contains(table)) {
+                    changed.add(table);
+                }
+            }
+            if (!changed.isEmpty()) {
+                registration.observer.onInvalidated(changed);
+            }
+        }
+    }
+
+    /**
+     * Receives the tables that changed since the last call.
+     */
+    public interface Observer {
+        void onInvalidated(List<String> tables);
+    }
+
+    private static final class Registration {
+        private final String user;
+        private final Observer observer;
+        private final Set<String> tables;
+
+        private Registration(String user, Observer observer, Set<String> tables) {
+            this.user = user;
+            this.observer = observer;
+            this.tables = tables;
+        }
+    }
+}
@@ -9,17 +9,12 @@ package com.zybooks.weighttrackerapp;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
+import android.widget.ProgressBar;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
-import java.security.InvalidAlgorithmParameterException;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.security.spec.InvalidKeySpecException;
-import javax.crypto.BadPaddingException;
-import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
 
 /**
  * This class contains the logic to control the initial login main screen.
@@ -28,7 +23,11 @@ public class MainActivity extends AppCompatActivity {
 
     private EditText username;
     private EditText password;
-    private Database database;
+    private Button loginButton;
+    private Button createAccountButton;
+    private ProgressBar progress;
+    private AsyncDatabase database;
+    private SessionStore sessions;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -37,27 +36,78 @@ public class MainActivity extends AppCompatActivity {
 
         username = findViewById(R.id.textUsername);
         password = findViewById(R.id.textPassword);
-        Button loginButton = findViewById(R.id.login_button);
-        Button createAccountButton = findViewById(R.id.signup_button);
-        database = Database.getInstance(getApplicationContext());
+        loginButton = findViewById(R.id.login_button);
+        createAccountButton = findViewById(R.id.signup_button);
+        progress = findViewById(R.id.login_progress);
+        database = AsyncDatabase.getInstance(getApplicationContext());
+        sessions = new SessionStore(getApplicationContext());
 
         loginButton.setOnClickListener(view -> {
             String user = username.getText().toString().toLowerCase().trim();
             String pass = password.getText().toString().trim();
-            try {
-                if (database.verifyUser(user, pass)) {
+            setBusy(true);
+
+            //The weight screen's data is read while the password check runs on another thread
+            WeightViewModel.prefetch(database, user);
+            database.read(db -> db.verifyUser(user, pass), verification -> {
+                setBusy(false);
+                if (verification != Database.Verification.FAILED) {
                     login(user);
-                    } else
+                    //The password is hashed again through the writer, never on a reader thread
+                    boolean rehash = verification == Database.Verification.NEEDS_REHASH;
+                    String previousToken = sessions.getToken();
+                    database.write(db -> {
+                        if (rehash) {
+                            db.updatePassword(user, pass);
+                        }
+                        return db.createSession(user, SessionStore.LIFETIME_MILLIS, previousToken);
+                    }, sessions::saveToken);
+                } else {
                     //incorrect
+                    WeightViewModel.clearPrefetch();
                     Toast.makeText(MainActivity.this,"Account Information Invalid",Toast.LENGTH_SHORT).show();
-            } catch (NoSuchAlgorithmException | InvalidKeySpecException | NoSuchPaddingException |
-                     InvalidAlgorithmParameterException | IllegalBlockSizeException |
-                     BadPaddingException | InvalidKeyException e) {
-                throw new RuntimeException(e);
-            }
+                }
+            });
         });
 
         createAccountButton.setOnClickListener(view -> createAccount());
+
+        if (savedInstanceState == null) {
+            resumeSession();
+        }
+    }
+
+    /**
+     * Method to go straight to the weight screen if the session saved on the device is still
+     * valid, so the password doesn't have to be checked again.
+     */
+    private void resumeSession() {
+        String token = sessions.getToken();
+        if (token == null) {
+            return;
+        }
+
+        setBusy(true);
+        database.read(db -> db.resumeSession(token), user -> {
+            setBusy(false);
+            if (user != null) {
+                login(user);
+            } else {
+                sessions.clear();
+            }
+        });
+    }
+
+    /**
+     * Method to show the progress bar and lock the form while a login is being checked.
+     * @param busy "True" while the login is being checked.
+     */
+    private void setBusy(boolean busy) {
+        progress.setVisibility(busy ? View.VISIBLE : View.GONE);
+        username.setEnabled(!busy);
+        password.setEnabled(!busy);
+        loginButton.setEnabled(!busy);
+        createAccountButton.setEnabled(!busy);
     }
 
     /**
@@ -0,0 +1,85 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Describe a single step of a database schema upgrade
+ */
+
+package com.zybooks.weighttrackerapp;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * The Migration class moves the database from one schema version to the next without losing
+ * any user data. SQLiteOpenHelper runs onUpgrade inside a single transaction, so every step is
+ * nested in it and nothing is committed until the last step has finished.
+ */
+abstract class Migration {
+    static final int CHUNK_SIZE = 500;
+
+    final int startVersion;
+    final int endVersion;
+
+    Migration(int startVersion, int endVersion) {
+        this.startVersion = startVersion;
+        this.endVersion = endVersion;
+    }
+
+    /**
+     * Method containing the schema and data changes of this step.
+     * @param db The database.
+     */
+    abstract void migrate(SQLiteDatabase db);
+
+    /**
+     * Method to run this step in a nested transaction. SQLite has no real nested transactions,
+     * so the step is only committed together with the transaction opened by SQLiteOpenHelper.
+     * A failed step marks that outer transaction as failed and the whole upgrade is rolled back,
+     * leaving the database at its old version to be upgraded again on the next launch.
+     * @param db The database.
+     */
+    final void run(SQLiteDatabase db) {
+        db.beginTransaction();
+        try {
+            migrate(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Method to visit every row of a table in chunks ordered by rowid so large tables are
+     * never loaded into a single cursor window.
+     * @param db The database.
+     * @param table Table to walk.
+     * @param columns Columns to select. The rowid is always selected as the first column.
+     * @param handler Handler called once for each row.
+     */
+    static void forEachRow(SQLiteDatabase db, String table, String columns, RowHandler handler) {
+        long lastRow = 0;
+        int count;
+
+        do {
+            Cursor cursor = db.rawQuery("SELECT rowid, " + columns + " FROM " + table +
+                    " WHERE rowid > ? ORDER BY rowid LIMIT " + CHUNK_SIZE,
+                    new String[]{String.valueOf(lastRow)});
+            count = cursor.getCount();
+
+            while (cursor.moveToNext()) {
+                lastRow = cursor.getLong(0);
+                handler.handle(cursor);
+            }
+
+            cursor.close();
+        } while (count == CHUNK_SIZE);
+    }
+
+    /**
+     * Callback used by forEachRow.
+     */
+    interface RowHandler {
+        void handle(Cursor cursor);
+    }
+}
@@ -0,0 +1,263 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Keep the ordered list of database schema upgrades
+ */
+
+package com.zybooks.weighttrackerapp;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import com.zybooks.weighttrackerapp.Database.SessionTable;
+import com.zybooks.weighttrackerapp.Database.UserTable;
+import com.zybooks.weighttrackerapp.Database.WeightTable;
+import java.security.GeneralSecurityException;
+import java.time.format.DateTimeParseException;
+
+/**
+ * This class contains every migration step in version order. A new step must be added here
+ * each time the database version is raised, along with a fixture of the old schema in
+ * src/test/resources/migrations for MigrationsTest. All the steps of an upgrade are committed
+ * together, see Migration.run.
+ */
+final class Migrations {
+
+    private Migrations() {
+    }
+
+    /**
+     * Version 1 kept goals in their own table and stored passwords as plain text. The
+     * passwords are left as they are with no salt, and are hashed by the version 6 step.
+     */
+    private static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        void migrate(SQLiteDatabase db) {
+            db.execSQL("ALTER TABLE " + UserTable.TABLE + " ADD COLUMN " + UserTable.GOAL + " REAL");
+            db.execSQL("ALTER TABLE " + UserTable.TABLE + " ADD COLUMN " + UserTable.SALT + " TEXT");
+            db.execSQL("CREATE TABLE IF NOT EXISTS goals (user TEXT, goal REAL)");
+            db.execSQL("UPDATE " + UserTable.TABLE + " SET " + UserTable.GOAL +
+                    " = COALESCE((SELECT MAX(goal) FROM goals WHERE goals.user = " +
+                    UserTable.TABLE + "." + UserTable.USER + "), 0)");
+            db.execSQL("DROP TABLE goals");
+        }
+    };
+
+    /**
+     * Version 3 adds the indexed epoch day column to the weights table.
+     */
+    private static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        void migrate(SQLiteDatabase db) {
+            db.execSQL("ALTER TABLE " + WeightTable.TABLE + " ADD COLUMN " +
+                    WeightTable.EPOCH_DAY + " INTEGER");
+
+            SQLiteStatement update = db.compileStatement("UPDATE " + WeightTable.TABLE + " SET " +
+                    WeightTable.EPOCH_DAY + " = ? WHERE rowid = ?");
+            Migration.forEachRow(db, WeightTable.TABLE, WeightTable.DATE, cursor -> {
+                try {
+                    update.bindLong(1, WeightEntry.toEpochDay(cursor.getString(1)));
+                    update.bindLong(2, cursor.getLong(0));
+                    update.executeUpdateDelete();
+                } catch (DateTimeParseException e) {
+                    //Dates that were never entered through the date picker are left unset
+                }
+            });
+            update.close();
+
+            db.execSQL("CREATE INDEX IF NOT EXISTS " + WeightTable.DAY_INDEX + " ON " +
+                    WeightTable.TABLE + " (" + WeightTable.USER + ", " + WeightTable.EPOCH_DAY + ")");
+        }
+    };
+
+    /**
+     * Version 4 gives each weight entry an integer id so it can be edited and deleted by id
+     * instead of by matching its date and weight text. Existing rowids are kept as the ids.
+     */
+    private static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        void migrate(SQLiteDatabase db) {
+            String columns = WeightTable.USER + ", " + WeightTable.DATE + ", " +
+                    WeightTable.WEIGHT + ", " + WeightTable.EPOCH_DAY;
+
+            //SQLite can't change a primary key in place so the table is copied into a new one.
+            //The copy is a single INSERT SELECT rather than chunks because it is committed with
+            //the rest of the upgrade anyway, and one statement never leaves the rows in memory
+            db.execSQL("CREATE TABLE weights_new (" +
+                    WeightTable.ID + " INTEGER PRIMARY KEY, " +
+                    WeightTable.USER + " TEXT, " +
+                    WeightTable.DATE + " TEXT, " +
+                    WeightTable.WEIGHT + " REAL, " +
+                    WeightTable.EPOCH_DAY + " INTEGER, " +
+                    "UNIQUE (" + WeightTable.USER + ", " + WeightTable.DATE + ", " +
+                    WeightTable.WEIGHT + "), " +
+                    "FOREIGN KEY (" + WeightTable.USER + ") REFERENCES " + UserTable.TABLE +
+                    "(" + UserTable.USER + "))");
+            db.execSQL("INSERT INTO weights_new (" + WeightTable.ID + ", " + columns + ") " +
+                    "SELECT rowid, " + columns + " FROM " + WeightTable.TABLE);
+            db.execSQL("DROP TABLE " + WeightTable.TABLE);
+            db.execSQL("ALTER TABLE weights_new RENAME TO " + WeightTable.TABLE);
+            db.execSQL("CREATE INDEX IF NOT EXISTS " + WeightTable.DAY_INDEX + " ON " +
+                    WeightTable.TABLE + " (" + WeightTable.USER + ", " + WeightTable.EPOCH_DAY + ")");
+        }
+    };
+
+    /**
+     * Version 5 stores the PBKDF2 iteration count of each password. Every password stored
+     * before it used the legacy count and is raised the next time the user logs in.
+     */
+    private static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        void migrate(SQLiteDatabase db) {
+            db.execSQL("ALTER TABLE " + UserTable.TABLE + " ADD COLUMN " + UserTable.ITERATIONS +
+                    " INTEGER NOT NULL DEFAULT " + Encryptor.LEGACY_ITERATIONS);
+        }
+    };
+
+    /**
+     * Version 6 stores a PBKDF2 hash of each password instead of an encrypted copy. The hash
+     * needs the password, so existing accounts keep their encrypted password until the user's
+     * next login replaces it. Plain text passwords carried over from version 1 have no salt
+     * and are hashed here.
+     */
+    private static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        void migrate(SQLiteDatabase db) {
+            db.execSQL("ALTER TABLE " + UserTable.TABLE + " ADD COLUMN " + UserTable.HASH + " BLOB");
+
+            Encryptor encryptor = Encryptor.getInstance();
+            SQLiteStatement update = db.compileStatement("UPDATE " + UserTable.TABLE + " SET " +
+                    UserTable.PASS + " = NULL, " + UserTable.HASH + " = ?, " + UserTable.SALT +
+                    " = ?, " + UserTable.ITERATIONS + " = ? WHERE rowid = ?");
+            Migration.forEachRow(db, UserTable.TABLE, UserTable.PASS + ", " + UserTable.SALT, cursor -> {
+                if (!cursor.isNull(2) || cursor.isNull(1)) {
+                    return;
+                }
+
+                //The legacy count keeps the upgrade quick, the next login raises it
+                String salt = encryptor.getSalt();
+                try {
+                    update.bindBlob(1, Encryptor.hash(cursor.getString(1), salt,
+                            Encryptor.LEGACY_ITERATIONS));
+                } catch (GeneralSecurityException e) {
+                    throw new RuntimeException(e);
+                }
+                update.bindString(2, salt);
+                update.bindLong(3, Encryptor.LEGACY_ITERATIONS);
+                update.bindLong(4, cursor.getLong(0));
+                update.executeUpdateDelete();
+            });
+            update.close();
+        }
+    };
+
+    /**
+     * Version 7 adds the sessions table that lets a user stay logged in between launches.
+     */
+    private static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        void migrate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS " + SessionTable.TABLE + " (" +
+                    SessionTable.TOKEN_HASH + " BLOB PRIMARY KEY, " +
+                    SessionTable.USER + " TEXT NOT NULL, " +
+                    SessionTable.EXPIRES + " INTEGER NOT NULL)");
+        }
+    };
+
+    /**
+     * Version 8 adds the weight to the date index so statistics can be read from the index
+     * alone. The old index is a prefix of the new one and is dropped.
+     */
+    private static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        void migrate(SQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS " + WeightTable.STATS_INDEX + " ON " +
+                    WeightTable.TABLE + " (" + WeightTable.USER + ", " + WeightTable.EPOCH_DAY +
+                    ", " + WeightTable.WEIGHT + ")");
+            db.execSQL("DROP INDEX IF EXISTS " + WeightTable.DAY_INDEX);
+        }
+    };
+
+    /**
+     * Version 9 adds the day, week and month totals kept up to date by every weight write, and
+     * fills them in from the existing entries.
+     */
+    private static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        void migrate(SQLiteDatabase db) {
+            Database.createRollupTable(db);
+            Database.rebuildRollups(db, null);
+        }
+    };
+
+    /**
+     * Version 10 stores each user's goal forecast, worked out here from each user's entries.
+     */
+    private static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        void migrate(SQLiteDatabase db) {
+            db.execSQL("ALTER TABLE " + UserTable.TABLE + " ADD COLUMN " + UserTable.FORECAST + " BLOB");
+
+            //Worked out once here so the weight screen never has to read the whole history
+            Migration.forEachRow(db, UserTable.TABLE, UserTable.USER, cursor ->
+                    Database.rebuildForecast(db, cursor.getString(1)));
+        }
+    };
+
+    /**
+     * Version 11 puts the id before the weight in the date index. Entries of the same day were
+     * ordered by weight, so ordering by date and id needed a sort. Version 10 only worked out a
+     * forecast once the user added a weight, so the users still without one get it here.
+     */
+    private static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        void migrate(SQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS " + WeightTable.ENTRY_INDEX + " ON " +
+                    WeightTable.TABLE + " (" + WeightTable.USER + ", " + WeightTable.EPOCH_DAY +
+                    ", " + WeightTable.ID + ", " + WeightTable.WEIGHT + ")");
+            db.execSQL("DROP INDEX IF EXISTS " + WeightTable.STATS_INDEX);
+
+            Migration.forEachRow(db, UserTable.TABLE, UserTable.USER + ", " + UserTable.FORECAST,
+                    cursor -> {
+                        if (cursor.isNull(2)) {
+                            Database.rebuildForecast(db, cursor.getString(1));
+                        }
+                    });
+        }
+    };
+
+    private static final Migration[] ALL = {
+            MIGRATION_1_2,
+            MIGRATION_2_3,
+            MIGRATION_3_4,
+            MIGRATION_4_5,
+            MIGRATION_5_6,
+            MIGRATION_6_7,
+            MIGRATION_7_8,
+            MIGRATION_8_9,
+            MIGRATION_9_10,
+            MIGRATION_10_11
+    };
+
+    /**
+     * Method to run the registered migrations in order until the database reaches the new version.
+     * @param db The database.
+     * @param oldVersion Version the database is currently at.
+     * @param newVersion Version the database needs to be upgraded to.
+     */
+    static void migrate(SQLiteDatabase db, int oldVersion, int newVersion) {
+        int version = oldVersion;
+
+        for (Migration migration : ALL) {
+            if (migration.startVersion == version && migration.endVersion <= newVersion) {
+                migration.run(db);
+                version = migration.endVersion;
+            }
+        }
+
+        if (version != newVersion) {
+            throw new IllegalStateException("No migration from version " + oldVersion +
+                    " to " + newVersion);
+        }
+    }
+}
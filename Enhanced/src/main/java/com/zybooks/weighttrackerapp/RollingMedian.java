@@ -0,0 +1,179 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Keep the median of the most recent values as new ones arrive
+ */
+
+package com.zybooks.weighttrackerapp;
+
+/**
+ * The RollingMedian class keeps the median of a sliding window of values. The lower half of
+ * the window is kept in a max heap and the upper half in a min heap, so the median is always
+ * on top. Each heap remembers where every value sits, so the oldest value can be removed
+ * when the window is full. Adding a value takes O(log n) time for a window of n values.
+ */
+final class RollingMedian {
+    private final int[] values;
+    //Position of each window slot in its heap, or the complement of it for the upper heap
+    private final int[] positions;
+    private final int[] lower;
+    private final int[] upper;
+    private int lowerSize;
+    private int upperSize;
+    private int next;
+    private int size;
+
+    RollingMedian(int capacity) {
+        values = new int[capacity];
+        positions = new int[capacity];
+        lower = new int[capacity];
+        upper = new int[capacity];
+    }
+
+    /**
+     * Method to add a value, dropping the oldest one once the window is full.
+     * @param value Value to add.
+     */
+    void add(int value) {
+        int slot = next;
+        if (size == values.length) {
+            remove(slot);
+        } else {
+            size++;
+        }
+        next = (next + 1) % values.length;
+
+        values[slot] = value;
+        if (lowerSize == 0 || value <= values[lower[0]]) {
+            lower[lowerSize] = slot;
+            siftUp(true, lowerSize++);
+        } else {
+            upper[upperSize] = slot;
+            siftUp(false, upperSize++);
+        }
+        rebalance();
+    }
+
+    /**
+     * Method to get the median of the window.
+     * @return The median or 0 if no values have been added.
+     */
+    double getMedian() {
+        if (size == 0) {
+            return 0;
+        }
+        if (lowerSize > upperSize) {
+            return values[lower[0]];
+        }
+        return (values[lower[0]] + (double) values[upper[0]]) / 2;
+    }
+
+    /**
+     * Method to get the number of values in the window.
+     * @return Number of values.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Method to take a window slot out of whichever heap holds it.
+     * @param slot Window slot to remove.
+     */
+    private void remove(int slot) {
+        boolean isLower = positions[slot] >= 0;
+        int[] heap = isLower ? lower : upper;
+        int position = isLower ? positions[slot] : ~positions[slot];
+        int last = isLower ? --lowerSize : --upperSize;
+
+        if (position != last) {
+            //Fill the gap with the last slot, which may belong above or below it
+            heap[position] = heap[last];
+            setPosition(isLower, position);
+            siftDown(isLower, siftUp(isLower, position));
+        }
+        rebalance();
+    }
+
+    /**
+     * Method to keep the lower heap the same size as the upper heap or one larger.
+     */
+    private void rebalance() {
+        if (lowerSize > upperSize + 1) {
+            upper[upperSize] = pollTop(true);
+            siftUp(false, upperSize++);
+        } else if (upperSize > lowerSize) {
+            lower[lowerSize] = pollTop(false);
+            siftUp(true, lowerSize++);
+        }
+    }
+
+    private int pollTop(boolean isLower) {
+        int[] heap = isLower ? lower : upper;
+        int top = heap[0];
+        int last = isLower ? --lowerSize : --upperSize;
+        heap[0] = heap[last];
+        setPosition(isLower, 0);
+        siftDown(isLower, 0);
+        return top;
+    }
+
+    private int siftUp(boolean isLower, int position) {
+        int[] heap = isLower ? lower : upper;
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!before(isLower, heap[position], heap[parent])) {
+                break;
+            }
+            swap(isLower, position, parent);
+            position = parent;
+        }
+        setPosition(isLower, position);
+        return position;
+    }
+
+    private void siftDown(boolean isLower, int position) {
+        int[] heap = isLower ? lower : upper;
+        int heapSize = isLower ? lowerSize : upperSize;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && before(isLower, heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(isLower, heap[child], heap[position])) {
+                break;
+            }
+            swap(isLower, position, child);
+            position = child;
+        }
+    }
+
+    /**
+     * Method to check if one slot belongs nearer the top of a heap than another.
+     * @param isLower "True" for the max heap of the lower half.
+     * @param a First window slot.
+     * @param b Second window slot.
+     * @return "True" if a belongs above b.
+     */
+    private boolean before(boolean isLower, int a, int b) {
+        return isLower ? values[a] > values[b] : values[a] < values[b];
+    }
+
+    private void swap(boolean isLower, int i, int j) {
+        int[] heap = isLower ? lower : upper;
+        int slot = heap[i];
+        heap[i] = heap[j];
+        heap[j] = slot;
+        setPosition(isLower, i);
+        setPosition(isLower, j);
+    }
+
+    private void setPosition(boolean isLower, int position) {
+        int[] heap = isLower ? lower : upper;
+        positions[heap[position]] = isLower ? position : ~position;
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Keep the user logged in between launches of the app
+ */
+
+package com.zybooks.weighttrackerapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * The SessionStore class keeps the session token of the logged in user on the device. The
+ * database only holds a hash of the token, so the token itself is what proves the session.
+ */
+public class SessionStore {
+    //Sessions last 30 days from the last password login
+    static final long LIFETIME_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
+    private static final String PREFERENCES = "session";
+    private static final String TOKEN = "token";
+
+    private final SharedPreferences preferences;
+
+    public SessionStore(Context context) {
+        preferences = context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Method to get the saved session token.
+     * @return The token or null if no user is logged in.
+     */
+    public String getToken() {
+        return preferences.getString(TOKEN, null);
+    }
+
+    /**
+     * Method to save the token of a new session, replacing any older one.
+     * @param token Session token made by the database.
+     */
+    public void saveToken(String token) {
+        preferences.edit().putString(TOKEN, token).apply();
+    }
+
+    /**
+     * Method to forget the saved token after it stops working.
+     */
+    public void clear() {
+        preferences.edit().remove(TOKEN).apply();
+    }
+}
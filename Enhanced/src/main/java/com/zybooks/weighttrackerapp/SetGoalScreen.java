@@ -26,7 +26,7 @@ public class SetGoalScreen extends AppCompatActivity {
     private static final int REQUEST_SEND_SMS_PERMISSIONS = 0;
     private EditText goalText;
     private EditText phoneText;
-    private Database database;
+    private AsyncDatabase database;
     private String user;
 
     @Override
@@ -36,7 +36,7 @@ public class SetGoalScreen extends AppCompatActivity {
 
         Intent intent = getIntent();
         user = intent.getStringExtra("user_key");
-        database = Database.getInstance(getApplicationContext());
+        database = AsyncDatabase.getInstance(getApplicationContext());
         Button permissionButton = findViewById(R.id.permission_button);
         Button numberButton = findViewById(R.id.add_number_button);
         Button setGoalButton = findViewById(R.id.set_goal_button);
@@ -56,14 +56,14 @@ public class SetGoalScreen extends AppCompatActivity {
         // add goal to database
         if (goalText.getText().length() != 0) {
             int goal = Integer.parseInt(goalText.getText().toString());
-                if (database.setGoal(user, goal)) {
+            database.write(db -> db.setGoal(user, goal), goalAdded -> {
+                if (goalAdded) {
                     Toast.makeText(getApplicationContext(), "Goal set", Toast.LENGTH_SHORT).show();
-                    Intent intent = new Intent(this, WeightScreen.class);
-                    intent.putExtra("user_key", user);
-                    startActivity(intent);
+                    finish();
                 } else {
                     Toast.makeText(SetGoalScreen.this, "Error adding your goal", Toast.LENGTH_LONG).show();
                 }
+            });
         } else {
             Toast.makeText(SetGoalScreen.this, "Please enter a valid goal", Toast.LENGTH_LONG).show();
         }
@@ -74,19 +74,20 @@ public class SetGoalScreen extends AppCompatActivity {
      */
     private void getPermission() {
         String permission = Manifest.permission.SEND_SMS;
-        String number = database.getPhoneNumber(user);
-        if (!number.equals("EMPTY")) {
-            if (ContextCompat.checkSelfPermission(this,
-                    permission) != PackageManager.PERMISSION_GRANTED) {
-                ActivityCompat.requestPermissions(this,
-                        new String[]{permission}, REQUEST_SEND_SMS_PERMISSIONS);
-                Toast.makeText(SetGoalScreen.this, "Permissions are currently denied\nPress allow or go to android settings", Toast.LENGTH_LONG).show();
+        database.read(db -> db.getPhoneNumber(user), number -> {
+            if (!number.equals("EMPTY")) {
+                if (ContextCompat.checkSelfPermission(this,
+                        permission) != PackageManager.PERMISSION_GRANTED) {
+                    ActivityCompat.requestPermissions(this,
+                            new String[]{permission}, REQUEST_SEND_SMS_PERMISSIONS);
+                    Toast.makeText(SetGoalScreen.this, "Permissions are currently denied\nPress allow or go to android settings", Toast.LENGTH_LONG).show();
+                } else {
+                    Toast.makeText(SetGoalScreen.this, "Permissions already granted", Toast.LENGTH_LONG).show();
+                }
             } else {
-                Toast.makeText(SetGoalScreen.this, "Permissions already granted", Toast.LENGTH_LONG).show();
+                Toast.makeText(SetGoalScreen.this, "Please enter a phone number first", Toast.LENGTH_LONG).show();
             }
-        } else {
-            Toast.makeText(SetGoalScreen.this, "Please enter a phone number first", Toast.LENGTH_LONG).show();
-        }
+        });
     }
 
     /**
@@ -97,11 +98,13 @@ public class SetGoalScreen extends AppCompatActivity {
         String phoneNumber = phoneText.getText().toString();
 
         if (phoneNumber.matches("\\d{10}")) {
-            if (database.addPhoneNumber(user, phoneNumber)){
-                Toast.makeText(SetGoalScreen.this,"Your number has been added",Toast.LENGTH_LONG).show();
-            } else {
-                Toast.makeText(SetGoalScreen.this,"There was an error adding your number",Toast.LENGTH_LONG).show();
-            }
+            database.write(db -> db.addPhoneNumber(user, phoneNumber), numberAdded -> {
+                if (numberAdded) {
+                    Toast.makeText(SetGoalScreen.this,"Your number has been added",Toast.LENGTH_LONG).show();
+                } else {
+                    Toast.makeText(SetGoalScreen.this,"There was an error adding your number",Toast.LENGTH_LONG).show();
+                }
+            });
         } else {
             Toast.makeText(SetGoalScreen.this,"Please enter a valid phone number",Toast.LENGTH_LONG).show();
         }
@@ -0,0 +1,356 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Draw the user's weight history as a line chart with their goal
+ */
+
+package com.zybooks.weighttrackerapp;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.DashPathEffect;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+import androidx.annotation.NonNull;
+
+/**
+ * The WeightChartView class draws a weight series that can be panned and zoomed. Only the
+ * range around the viewport is loaded, as daily, weekly or monthly averages so there are at
+ * most about as many points in view as the view is wide, and a listener is asked for more
+ * when the viewport leaves it. The line is built into a path once per data or viewport change
+ * and the same path is drawn on every other frame.
+ */
+public class WeightChartView extends View {
+    //Shortest range of days the chart can be zoomed into
+    private static final double MIN_SPAN_DAYS = 7;
+
+    private final Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint goalPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path path = new Path();
+    private final GestureDetector panDetector;
+    private final ScaleGestureDetector zoomDetector;
+
+    private Series series = Series.EMPTY;
+    private int goal;
+    private RangeListener rangeListener;
+
+    //Last range asked for, so it isn't asked for again while it loads
+    private long requestedFrom;
+    private long requestedTo;
+    private int requestedPeriod = -1;
+
+    //Range of days on screen
+    private double viewStart;
+    private double viewEnd;
+    private boolean showingAll = true;
+
+    private boolean pathDirty = true;
+
+    public WeightChartView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeWidth(3 * getResources().getDisplayMetrics().density);
+        linePaint.setColor(getResources().getColor(R.color.blue, null));
+        goalPaint.setStyle(Paint.Style.STROKE);
+        goalPaint.setStrokeWidth(2 * getResources().getDisplayMetrics().density);
+        goalPaint.setColor(Color.GRAY);
+        goalPaint.setPathEffect(new DashPathEffect(new float[]{20, 10}, 0));
+
+        panDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(@NonNull MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(MotionEvent e1, @NonNull MotionEvent e2, float dx, float dy) {
+                double shift = dx * (viewEnd - viewStart) / getChartWidth();
+                setViewport(viewStart + shift, viewEnd + shift);
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(@NonNull MotionEvent e) {
+                showAll();
+                return true;
+            }
+        });
+        zoomDetector = new ScaleGestureDetector(context,
+                new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(@NonNull ScaleGestureDetector detector) {
+                //Zoom around the point between the fingers so it stays in place
+                double span = viewEnd - viewStart;
+                double focus = viewStart + (detector.getFocusX() - getPaddingLeft()) * span / getChartWidth();
+                double scale = 1 / detector.getScaleFactor();
+                setViewport(focus - (focus - viewStart) * scale, focus + (viewEnd - focus) * scale);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Method to set the listener asked to load the range around the viewport.
+     * @param listener Listener that loads a series and passes it to setSeries.
+     */
+    public void setRangeListener(RangeListener listener) {
+        rangeListener = listener;
+        requestedPeriod = -1;
+        checkRange();
+    }
+
+    /**
+     * Method to show a new weight series, keeping the current zoom unless it showed everything.
+     * @param series Points in date order.
+     */
+    public void setSeries(Series series) {
+        this.series = series;
+        if (showingAll) {
+            showAll();
+        } else {
+            setViewport(viewStart, viewEnd);
+        }
+        pathDirty = true;
+        invalidate();
+        checkRange();
+    }
+
+    /**
+     * Method to set the goal drawn as a dashed line.
+     * @param goal Weight goal of the user or 0 if no goal set.
+     */
+    public void setGoal(int goal) {
+        if (this.goal != goal) {
+            this.goal = goal;
+            pathDirty = true;
+            invalidate();
+        }
+    }
+
+    /**
+     * Method to zoom out to the whole series.
+     */
+    private void showAll() {
+        if (series.size == 0) {
+            viewStart = 0;
+            viewEnd = MIN_SPAN_DAYS;
+        } else {
+            viewStart = series.firstDay;
+            viewEnd = Math.max(series.lastDay, viewStart + MIN_SPAN_DAYS);
+        }
+        showingAll = true;
+        pathDirty = true;
+        invalidate();
+        checkRange();
+    }
+
+    /**
+     * Method to move the range of days on screen, kept within the user's entries.
+     * @param start First day on screen.
+     * @param end Last day on screen.
+     */
+    private void setViewport(double start, double end) {
+        if (series.size == 0) {
+            showAll();
+            return;
+        }
+
+        double first = series.firstDay;
+        double last = Math.max(series.lastDay, first + MIN_SPAN_DAYS);
+        double span = Math.min(Math.max(end - start, MIN_SPAN_DAYS), last - first);
+        start = Math.min(Math.max(start, first), last - span);
+
+        if (start != viewStart || start + span != viewEnd) {
+            viewStart = start;
+            viewEnd = start + span;
+            showingAll = span >= last - first;
+            pathDirty = true;
+            invalidate();
+            checkRange();
+        }
+    }
+
+    /**
+     * Method to ask for the range around the viewport when the loaded series doesn't cover it
+     * or its points are too close together or too far apart for the zoom.
+     */
+    private void checkRange() {
+        if (rangeListener == null || getWidth() == 0) {
+            return;
+        }
+
+        long from;
+        long to;
+        int period;
+        if (series == Series.EMPTY) {
+            //Nothing is loaded yet, so start with every entry by month
+            from = Long.MIN_VALUE;
+            to = Long.MAX_VALUE;
+            period = WeightRollup.MONTH;
+        } else {
+            from = (long) Math.floor(viewStart);
+            to = (long) Math.ceil(viewEnd);
+            period = WeightRollup.periodFor(to - from + 1, getChartWidth());
+            if (period == series.period && series.fromDay <= from && to <= series.toDay) {
+                return;
+            }
+        }
+
+        if (from != requestedFrom || to != requestedTo || period != requestedPeriod) {
+            requestedFrom = from;
+            requestedTo = to;
+            requestedPeriod = period;
+            rangeListener.onRangeNeeded(from, to, period);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        //Keep the list from scrolling while the chart is being dragged
+        getParent().requestDisallowInterceptTouchEvent(true);
+        boolean handled = zoomDetector.onTouchEvent(event);
+        handled |= panDetector.onTouchEvent(event);
+        return handled || super.onTouchEvent(event);
+    }
+
+    @Override
+    protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight) {
+        super.onSizeChanged(width, height, oldWidth, oldHeight);
+        pathDirty = true;
+        checkRange();
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        if (pathDirty) {
+            buildPath();
+            pathDirty = false;
+        }
+
+        canvas.drawPath(path, linePaint);
+        if (goal > 0) {
+            float y = toY(goal);
+            canvas.drawLine(getPaddingLeft(), y, getWidth() - getPaddingRight(), y, goalPaint);
+        }
+    }
+
+    /**
+     * Method to join the points in view into the cached path.
+     */
+    private void buildPath() {
+        path.rewind();
+        if (series.size == 0) {
+            return;
+        }
+
+        //One point either side of the view keeps the line running to the edges
+        int from = Math.max(lowerBound(viewStart) - 1, 0);
+        int to = Math.min(lowerBound(Math.floor(viewEnd) + 1) + 1, series.size);
+        for (int i = from; i < to; i++) {
+            float x = toX(series.days[i]);
+            float y = toY(series.weights[i]);
+            if (i == from) {
+                path.moveTo(x, y);
+            } else {
+                path.lineTo(x, y);
+            }
+        }
+    }
+
+    /**
+     * Method to find the first entry on or after a day.
+     * @param day Epoch day to search for.
+     * @return Index of the first entry on or after the day, or the size if there is none.
+     */
+    private int lowerBound(double day) {
+        int low = 0;
+        int high = series.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (series.days[middle] < day) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int getChartWidth() {
+        return Math.max(getWidth() - getPaddingLeft() - getPaddingRight(), 1);
+    }
+
+    private float toX(int day) {
+        return (float) (getPaddingLeft() + (day - viewStart) * getChartWidth() / (viewEnd - viewStart));
+    }
+
+    private float toY(int weight) {
+        //The goal is kept in view along with every weight
+        float low = goal > 0 ? Math.min(series.minWeight, goal) : series.minWeight;
+        float high = goal > 0 ? Math.max(series.maxWeight, goal) : series.maxWeight;
+        float range = Math.max(high - low, 1);
+        float height = getHeight() - getPaddingTop() - getPaddingBottom();
+        return getPaddingTop() + (high - weight) * height / range;
+    }
+
+    /**
+     * Listener asked to load the series for a range of days.
+     */
+    public interface RangeListener {
+        /**
+         * Method called when the chart needs a range loaded.
+         * @param fromDay First epoch day needed, or Long.MIN_VALUE from the first entry.
+         * @param toDay Last epoch day needed, or Long.MAX_VALUE to the last entry.
+         * @param period WeightRollup period to average the weights by.
+         */
+        void onRangeNeeded(long fromDay, long toDay, int period);
+    }
+
+    /**
+     * Average weights of a range of a user's entries in date order, along with the days and
+     * weights of the whole history so the chart can be scaled without loading all of it.
+     */
+    public static final class Series {
+        //Nothing loaded yet
+        static final Series EMPTY = new Series(new int[0], new int[0], 0, WeightRollup.MONTH,
+                1, 0, 0, 0, 0, 0);
+        //Loaded for a user with no entries
+        static final Series NONE = new Series(new int[0], new int[0], 0, WeightRollup.DAY,
+                Long.MIN_VALUE, Long.MAX_VALUE, 0, 0, 0, 0);
+
+        final int[] days;
+        final int[] weights;
+        final int size;
+        final int period;
+        //Range of days loaded, open ended when it reaches the first or last entry
+        final long fromDay;
+        final long toDay;
+        final long firstDay;
+        final long lastDay;
+        final int minWeight;
+        final int maxWeight;
+
+        Series(int[] days, int[] weights, int size, int period, long fromDay, long toDay,
+               long firstDay, long lastDay, int minWeight, int maxWeight) {
+            this.days = days;
+            this.weights = weights;
+            this.size = size;
+            this.period = period;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+            this.minWeight = minWeight;
+            this.maxWeight = maxWeight;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Hold a single weight entry read from the database
+ */
+
+package com.zybooks.weighttrackerapp;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * The WeightEntry class is an immutable row of the weights table.
+ */
+public final class WeightEntry {
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("MM/dd/yy", Locale.US);
+
+    public final long id;
+    public final long epochDay;
+    public final int weight;
+
+    public WeightEntry(long id, long epochDay, int weight) {
+        this.id = id;
+        this.epochDay = epochDay;
+        this.weight = weight;
+    }
+
+    /**
+     * Method to convert a date in US format to the number of days since 01/01/1970.
+     * @param date Date in MM/dd/yy format.
+     * @return The epoch day of the date.
+     */
+    public static long toEpochDay(String date) {
+        return LocalDate.parse(date, DATE_FORMAT).toEpochDay();
+    }
+
+    /**
+     * Method to convert an epoch day back into US date format.
+     * @param epochDay Number of days since 01/01/1970.
+     * @return The date in MM/dd/yy format.
+     */
+    public static String formatDate(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay).format(DATE_FORMAT);
+    }
+}
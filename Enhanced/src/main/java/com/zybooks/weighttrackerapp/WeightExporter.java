@@ -0,0 +1,122 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Allow user to take their weight history out of the app
+ */
+
+package com.zybooks.weighttrackerapp;
+
+import android.database.Cursor;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * The WeightExporter class walks a database cursor and writes each entry straight to a
+ * buffered stream, so memory use stays the same no matter how long the history is.
+ */
+public class WeightExporter {
+
+    /**
+     * The file formats that can be written.
+     */
+    public enum Format {
+        CSV,
+        JSON_LINES
+    }
+
+    private final Database database;
+
+    public WeightExporter(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Method to export weight entries to a stream. Dates are written in yyyy-MM-dd format so a
+     * single user CSV export can be imported again.
+     * @param out Stream to write to. It is flushed but not closed.
+     * @param format Format to write.
+     * @param user Username to export or null to export every user.
+     * @param fromDay First epoch day to include.
+     * @param toDay Last epoch day to include.
+     * @return The number of entries written.
+     */
+    public int export(OutputStream out, Format format, String user, long fromDay, long toDay)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        boolean withUser = user == null;
+        int count = 0;
+
+        if (format == Format.CSV) {
+            writer.write(withUser ? "user,date,weight\n" : "date,weight\n");
+        }
+
+        //Columns are user, epoch day and weight
+        try (Cursor cursor = database.queryEntries(user, fromDay, toDay)) {
+            while (cursor.moveToNext()) {
+                String date = LocalDate.ofEpochDay(cursor.getLong(1)).toString();
+                int weight = cursor.getInt(2);
+
+                if (format == Format.CSV) {
+                    if (withUser) {
+                        writeCsvField(writer, cursor.getString(0));
+                        writer.write(',');
+                    }
+                    writer.write(date);
+                    writer.write(',');
+                    writer.write(Integer.toString(weight));
+                } else {
+                    writer.write("{\"user\":");
+                    writeJsonString(writer, cursor.getString(0));
+                    writer.write(",\"date\":\"");
+                    writer.write(date);
+                    writer.write("\",\"weight\":");
+                    writer.write(Integer.toString(weight));
+                    writer.write('}');
+                }
+                writer.write('\n');
+                count++;
+            }
+        }
+
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Method to write a CSV field, quoting it only when it contains a separator or quote.
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * Method to write a JSON string with the characters JSON requires to be escaped.
+     */
+    private static void writeJsonString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20) {
+                writer.write(String.format("\\u%04x", (int) c));
+            } else {
+                writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Allow user to bring in their weight history from another tracker
+ */
+
+package com.zybooks.weighttrackerapp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+
+/**
+ * The WeightImporter class streams a CSV file of date,weight rows into the database. Rows are
+ * checked as they are read and inserted in large transactions with one reused statement.
+ */
+public class WeightImporter {
+    private static final int BATCH_SIZE = 2000;
+    private static final int MAX_ERRORS = 100;
+
+    private final Database database;
+    private final ProgressListener listener;
+
+    public WeightImporter(Database database, ProgressListener listener) {
+        this.database = database;
+        this.listener = listener;
+    }
+
+    /**
+     * Method to import every row of a CSV file for a user. Dates may be in MM/dd/yy or
+     * yyyy-MM-dd format and a header row is skipped.
+     * @param user Username of user.
+     * @param in Stream of the CSV file. It is not closed by this method.
+     * @return The number of rows imported, the rows that were skipped and any read error.
+     */
+    public Result importCsv(String user, InputStream in) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Result result = new Result();
+        long[] days = new long[BATCH_SIZE];
+        int[] weights = new int[BATCH_SIZE];
+        int[] lines = new int[BATCH_SIZE];
+        int size = 0;
+        int lineNumber = 0;
+        String line;
+
+        while ((line = readLine(reader, result)) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+
+            int comma = line.indexOf(',');
+            try {
+                if (comma < 0) {
+                    throw new IllegalArgumentException("expected date,weight");
+                }
+                days[size] = parseDay(line.substring(0, comma).trim());
+                weights[size] = parseWeight(line.substring(comma + 1).trim());
+                lines[size] = lineNumber;
+                size++;
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                //The first row is usually a header so it is skipped quietly
+                if (lineNumber != 1) {
+                    result.addError(lineNumber, e.getMessage());
+                }
+            }
+
+            if (size == BATCH_SIZE) {
+                insertBatch(user, days, weights, lines, size, result);
+                size = 0;
+                if (listener != null) {
+                    listener.onProgress(lineNumber);
+                }
+            }
+        }
+
+        insertBatch(user, days, weights, lines, size, result);
+        if (listener != null) {
+            listener.onProgress(lineNumber);
+        }
+
+        return result;
+    }
+
+    /**
+     * Method to read the next line, stopping the import if the file can't be read. Rows read
+     * before the error are still imported.
+     * @param reader Reader of the CSV file.
+     * @param result Result the error is reported in.
+     * @return The next line or null at the end of the file or after an error.
+     */
+    private static String readLine(BufferedReader reader, Result result) {
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            result.readError = e.getMessage();
+            return null;
+        }
+    }
+
+    /**
+     * Method to insert one batch of checked rows in a single transaction.
+     */
+    private void insertBatch(String user, long[] days, int[] weights, int[] lines, int size,
+                             Result result) {
+        if (size == 0) {
+            return;
+        }
+
+        database.runInTransaction(() -> {
+            for (int i = 0; i < size; i++) {
+                if (database.insertWeight(user, WeightEntry.formatDate(days[i]), days[i], weights[i]) != -1) {
+                    result.imported++;
+                } else {
+                    result.addError(lines[i], "duplicate entry");
+                }
+            }
+        });
+    }
+
+    /**
+     * Method to read a date in either US or ISO format. Dates are stored as MM/dd/yy, which
+     * only holds the years 2000 to 2099, so ISO dates outside them are rejected.
+     * @param date Date text from the file.
+     * @return The epoch day of the date.
+     */
+    private static long parseDay(String date) {
+        if (date.indexOf('-') >= 0) {
+            LocalDate day = LocalDate.parse(date);
+            if (day.getYear() < 2000 || day.getYear() > 2099) {
+                throw new IllegalArgumentException("year must be from 2000 to 2099");
+            }
+            return day.toEpochDay();
+        }
+        return WeightEntry.toEpochDay(date);
+    }
+
+    /**
+     * Method to read a weight, rounding decimals to the whole numbers the app stores.
+     * @param weight Weight text from the file.
+     * @return The weight.
+     */
+    private static int parseWeight(String weight) {
+        double value = Double.parseDouble(weight);
+        if (!(value > 0 && value < 10000)) {
+            throw new IllegalArgumentException("weight out of range");
+        }
+        return (int) Math.round(value);
+    }
+
+    /**
+     * Receives the number of lines read so far after each batch is committed.
+     */
+    public interface ProgressListener {
+        void onProgress(int linesRead);
+    }
+
+    /**
+     * The outcome of an import.
+     */
+    public static final class Result {
+        public int imported;
+        public int failed;
+        public final ArrayList<String> errors = new ArrayList<>();
+        //Why the file could not be read to the end, or null if it was
+        public String readError;
+
+        /**
+         * Method to make the result of a file that could not be opened.
+         * @param message Why the file could not be opened.
+         * @return A result with nothing imported.
+         */
+        static Result unreadable(String message) {
+            Result result = new Result();
+            result.readError = message;
+            return result;
+        }
+
+        private void addError(int line, String message) {
+            failed++;
+            //Only the first errors are kept so a bad file can't use up memory
+            if (errors.size() < MAX_ERRORS) {
+                errors.add("Line " + line + ": " + message);
+            }
+        }
+    }
+}
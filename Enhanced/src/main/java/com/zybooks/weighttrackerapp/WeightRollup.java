@@ -0,0 +1,121 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Hold the totals of a user's weights for one day, week or month
+ */
+
+package com.zybooks.weighttrackerapp;
+
+import java.time.LocalDate;
+
+/**
+ * The WeightRollup class is an immutable row of the rollups table. It also knows which bucket
+ * each day falls into, so the bucket math lives in one place.
+ */
+public final class WeightRollup {
+    public static final int DAY = 0;
+    public static final int WEEK = 1;
+    public static final int MONTH = 2;
+    static final int[] PERIODS = {DAY, WEEK, MONTH};
+
+    public final int period;
+    public final long bucket;
+    public final int count;
+    public final double sum;
+    public final int min;
+    public final int max;
+
+    public WeightRollup(int period, long bucket, int count, double sum, int min, int max) {
+        this.period = period;
+        this.bucket = bucket;
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Method to get the mean weight of the bucket.
+     * @return Mean weight.
+     */
+    public double getMean() {
+        return sum / count;
+    }
+
+    /**
+     * Method to get the first day of the bucket.
+     * @return Epoch day the bucket starts on.
+     */
+    public long getFirstDay() {
+        return firstDay(period, bucket);
+    }
+
+    /**
+     * Method to find the bucket a day falls into. Weeks start on Monday and months are
+     * counted from year 0.
+     * @param period DAY, WEEK or MONTH.
+     * @param epochDay Number of days since 01/01/1970.
+     * @return Bucket number of the day.
+     */
+    public static long bucketOf(int period, long epochDay) {
+        switch (period) {
+            case DAY:
+                return epochDay;
+            case WEEK:
+                //01/01/1970 was a Thursday, so shifting by 3 lines weeks up with Monday
+                return Math.floorDiv(epochDay + 3, 7);
+            case MONTH:
+                LocalDate date = LocalDate.ofEpochDay(epochDay);
+                return date.getYear() * 12L + date.getMonthValue() - 1;
+            default:
+                throw new IllegalArgumentException("Unknown period " + period);
+        }
+    }
+
+    /**
+     * Method to find the first day of a bucket.
+     * @param period DAY, WEEK or MONTH.
+     * @param bucket Bucket number.
+     * @return Epoch day the bucket starts on.
+     */
+    public static long firstDay(int period, long bucket) {
+        switch (period) {
+            case DAY:
+                return bucket;
+            case WEEK:
+                return bucket * 7 - 3;
+            case MONTH:
+                return LocalDate.of((int) Math.floorDiv(bucket, 12L),
+                        (int) Math.floorMod(bucket, 12L) + 1, 1).toEpochDay();
+            default:
+                throw new IllegalArgumentException("Unknown period " + period);
+        }
+    }
+
+    /**
+     * Method to pick the shortest period that splits a range into no more buckets than given.
+     * @param days Number of days in the range.
+     * @param maxBuckets Most buckets wanted, such as one per pixel of a chart.
+     * @return DAY, WEEK or MONTH.
+     */
+    public static int periodFor(long days, int maxBuckets) {
+        if (days <= maxBuckets) {
+            return DAY;
+        }
+        if (days <= 7L * maxBuckets) {
+            return WEEK;
+        }
+        return MONTH;
+    }
+
+    /**
+     * Method to find the last day of a bucket.
+     * @param period DAY, WEEK or MONTH.
+     * @param bucket Bucket number.
+     * @return Epoch day the bucket ends on.
+     */
+    public static long lastDay(int period, long bucket) {
+        return firstDay(period, bucket + 1) - 1;
+    }
+}
@@ -7,17 +7,24 @@
 
 package com.zybooks.weighttrackerapp;
 
-import static java.lang.Math.abs;
-
+import android.content.ContentResolver;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
 import android.widget.Button;
+import android.widget.TextView;
 import android.widget.Toast;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.ArrayList;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * This class contains the logic to control the weight screen.
@@ -25,10 +32,21 @@ import java.util.ArrayList;
 public class WeightScreen extends AppCompatActivity {
 
     private String user;
-    private int goal;
-    private Database database;
-    private ArrayList<String> weights = new ArrayList<>();
-    private ArrayList<String> goalDiffs = new ArrayList<>();
+    private AsyncDatabase database;
+    private WeightViewModel viewModel;
+    private Adapter adapter;
+
+    //Lets the user pick a CSV file to import
+    private final ActivityResultLauncher<String[]> importLauncher = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(), this::importWeights);
+
+    //Lets the user choose where to save an export as CSV or as JSON lines
+    private final ActivityResultLauncher<String> csvExportLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument("text/csv"),
+            uri -> exportWeights(uri, WeightExporter.Format.CSV));
+    private final ActivityResultLauncher<String> jsonExportLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument("application/x-ndjson"),
+            uri -> exportWeights(uri, WeightExporter.Format.JSON_LINES));
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -37,70 +55,171 @@ public class WeightScreen extends AppCompatActivity {
 
         Intent intent = getIntent();
         user = intent.getStringExtra("user_key");
-        database = Database.getInstance(getApplicationContext());
+        database = AsyncDatabase.getInstance(getApplicationContext());
 
-        //Set up array lists to pass to view
-        goal = database.getGoal(user);
-        ArrayList<String> dates = database.getDates(user);
-        weights = database.getWeights(user);
-        goalDiffs = calcGoalDiff();
+        //The view model keeps the loaded entries through rotations and reloads them only when
+        //a write to the user's weights or profile is reported
+        viewModel = new ViewModelProvider(this).get(WeightViewModel.class);
+        viewModel.start(user);
 
-        //Create View and Adapter
+        //Create View and Adapter. Entries are loaded a page at a time as the user scrolls
         RecyclerView recyclerView = findViewById(R.id.data_grid);
-        Adapter adapter = new Adapter(this, dates, weights, goalDiffs, user);
+        adapter = new Adapter(this, this::editWeight);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
         recyclerView.setAdapter(adapter);
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+                //Also called after each layout so short first pages keep filling the list
+                viewModel.loadMoreIfNeeded(layoutManager.findLastVisibleItemPosition());
+            }
+        });
+
+        viewModel.getRows().observe(this, adapter::submit);
+        viewModel.getGoal().observe(this, adapter::setGoal);
+
+        WeightChartView chart = findViewById(R.id.weight_chart);
+        chart.setRangeListener(viewModel::loadChart);
+        viewModel.getSeries().observe(this, chart::setSeries);
+        viewModel.getGoal().observe(this, chart::setGoal);
+
+        TextView statsView = findViewById(R.id.stats_summary);
+        viewModel.getStats().observe(this, stats -> statsView.setText(stats.count == 0
+                ? getString(R.string.stats_empty)
+                : getString(R.string.stats_summary, stats.count, stats.mean, stats.min, stats.max,
+                        stats.getChange())));
+
+        TextView etaView = findViewById(R.id.goal_eta);
+        viewModel.getEta().observe(this, day -> etaView.setText(day == GoalForecaster.NO_ETA
+                ? getString(R.string.goal_eta_unknown)
+                : getString(R.string.goal_eta, WeightEntry.formatDate(day))));
 
         Button addButton = findViewById(R.id.add_button);
         Button goalButton = findViewById(R.id.goal_button);
         Button clearButton = findViewById(R.id.clear_button);
+        Button importButton = findViewById(R.id.import_button);
+        Button exportButton = findViewById(R.id.export_button);
+        Button signOutButton = findViewById(R.id.sign_out_button);
 
         addButton.setOnClickListener(view -> addWeight());
         goalButton.setOnClickListener(view -> setGoal());
         clearButton.setOnClickListener(view -> deleteAll());
+        importButton.setOnClickListener(view -> importLauncher.launch(
+                new String[]{"text/csv", "text/comma-separated-values", "text/plain"}));
+        exportButton.setOnClickListener(view -> csvExportLauncher.launch("weights.csv"));
+        exportButton.setOnLongClickListener(view -> {
+            jsonExportLauncher.launch("weights.jsonl");
+            return true;
+        });
+        signOutButton.setOnClickListener(view -> signOut());
+
+        viewModel.getImportProgress().observe(this, lines -> {
+            importButton.setEnabled(lines == null);
+            importButton.setText(lines == null ? getString(R.string.import_csv)
+                    : getString(R.string.importing, lines));
+        });
+        viewModel.getImportResult().observe(this, this::showImportResult);
     }
 
     /**
      * Method to delete all the weight entries for the user.
      */
     private void deleteAll() {
-        if (database.clearAll(user)) {
-            Toast.makeText(getApplicationContext(), "List Cleared", Toast.LENGTH_LONG).show();
-            Intent intent = new Intent(this, WeightScreen.class);
-            intent.putExtra("user_key", user);
-            startActivity(intent);
-        } else {
-            Toast.makeText(WeightScreen.this, "No Weights Deleted", Toast.LENGTH_LONG).show();
+        database.write(db -> db.clearAll(user), cleared -> {
+            if (cleared) {
+                Toast.makeText(getApplicationContext(), "List Cleared", Toast.LENGTH_LONG).show();
+            } else {
+                Toast.makeText(WeightScreen.this, "No Weights Deleted", Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    /**
+     * Method to import a CSV file of weights picked by the user.
+     * @param uri Location of the file or null if the user backed out.
+     */
+    private void importWeights(Uri uri) {
+        if (uri != null) {
+            viewModel.importCsv(uri);
         }
     }
 
     /**
-     * Method to generate the differences between a users weight and their goal.
-     * @return An array of the differences or N/A if no goal set.
+     * Method to tell the user how their import went.
+     * @param result Outcome of the import or null if it has already been shown.
      */
-    private ArrayList<String> calcGoalDiff() {
+    private void showImportResult(WeightImporter.Result result) {
+        if (result == null) {
+            return;
+        }
 
-        //Calculates the difference between user's weight and their goal
-        if (goal == 0) {
-            for (int i = 0; i < weights.size(); i++) {
-                goalDiffs.add("N/A");
-            }
-        } else {
-            for (int i = 0; i < weights.size(); i++) {
-                int weight = Integer.parseInt(weights.get(i));
-                int diff = weight - goal;
-
-                if (diff > 0) {
-                    goalDiffs.add("-" + diff);
-                } else if (diff < 0) {
-                    goalDiffs.add("+" + abs(diff));
-                } else {
-                    goalDiffs.add(String.valueOf(diff));
+        String message = "Imported " + result.imported + " entries, skipped " + result.failed;
+        if (result.readError != null) {
+            message = "Could not read the whole file. " + message;
+        }
+        Toast.makeText(getApplicationContext(), message, Toast.LENGTH_LONG).show();
+        viewModel.clearImportResult();
+    }
+
+    /**
+     * Method to write the user's whole history to the file they chose.
+     * @param uri Location of the file or null if the user backed out.
+     * @param format Format to write the file in.
+     */
+    private void exportWeights(Uri uri, WeightExporter.Format format) {
+        if (uri == null) {
+            return;
+        }
+
+        ContentResolver resolver = getApplicationContext().getContentResolver();
+        database.read(db -> {
+            try (OutputStream out = resolver.openOutputStream(uri)) {
+                if (out == null) {
+                    throw new FileNotFoundException(uri.toString());
                 }
+                return new WeightExporter(db).export(out, format, user, Long.MIN_VALUE, Long.MAX_VALUE);
+            } catch (IOException e) {
+                //A failed write is reported instead of being thrown on the main thread
+                return -1;
+            }
+        }, count -> {
+            if (count >= 0) {
+                Toast.makeText(getApplicationContext(), "Exported " + count + " entries",
+                        Toast.LENGTH_LONG).show();
+            } else {
+                Toast.makeText(getApplicationContext(), "Export failed, the file could not be written",
+                        Toast.LENGTH_LONG).show();
             }
+        });
+    }
+
+    /**
+     * Method to end the session saved on the device and go back to the login screen, so the
+     * next launch asks for the password again.
+     */
+    private void signOut() {
+        SessionStore sessions = new SessionStore(getApplicationContext());
+        String token = sessions.getToken();
+        if (token == null) {
+            returnToLogin();
+            return;
         }
 
-        return goalDiffs;
+        database.write(db -> db.endSession(token), ended -> {
+            sessions.clear();
+            returnToLogin();
+        });
+    }
+
+    /**
+     * Method to close every screen above the login screen and show it again.
+     */
+    private void returnToLogin() {
+        Intent intent = new Intent(this, MainActivity.class);
+        intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        startActivity(intent);
+        finish();
     }
 
     /**
@@ -120,4 +239,15 @@ public class WeightScreen extends AppCompatActivity {
         intent.putExtra("user_key", user);
         startActivity(intent);
     }
+
+    /**
+     * Method to launch the edit weight screen with the id of a card's entry.
+     * @param position Position of the card.
+     */
+    private void editWeight(int position) {
+        Intent intent = new Intent(this, EditWeightScreen.class);
+        intent.putExtra("user_key", user);
+        intent.putExtra("id_key", adapter.getEntryId(position));
+        startActivity(intent);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Hold a summary of the weights entered over a range of days
+ */
+
+package com.zybooks.weighttrackerapp;
+
+/**
+ * The WeightStats class is an immutable summary of a user's weights over a date range.
+ */
+public final class WeightStats {
+    static final WeightStats EMPTY = new WeightStats(0, 0, 0, 0, 0, 0);
+
+    public final int count;
+    public final int min;
+    public final int max;
+    public final double mean;
+    public final int first;
+    public final int last;
+
+    public WeightStats(int count, int min, int max, double mean, int first, int last) {
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Method to get how much the weight changed from the first entry to the last.
+     * @return Last weight minus first weight.
+     */
+    public int getChange() {
+        return last - first;
+    }
+}
@@ -0,0 +1,441 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Keep the weight screen's data loaded while the screen is recreated
+ */
+
+package com.zybooks.weighttrackerapp;
+
+import android.app.Application;
+import android.content.ContentResolver;
+import android.net.Uri;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The WeightViewModel class holds the entries and goal shown on the weight screen. It outlives
+ * rotations and trips to the other screens, so the data is loaded once and then only reloaded
+ * when the invalidation tracker reports a write to it.
+ */
+public class WeightViewModel extends AndroidViewModel {
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 20;
+    private static final int STATS_DAYS = 30;
+
+    //Goal and first page read while the user is logging in, waiting for the screen to open
+    private static String prefetchUser;
+    private static Prefetch prefetched;
+
+    private final AsyncDatabase database;
+    private final MutableLiveData<Adapter.Update> rows = new MutableLiveData<>();
+    private final MutableLiveData<Integer> goal = new MutableLiveData<>();
+    private final MutableLiveData<WeightStats> stats = new MutableLiveData<>();
+    private final MutableLiveData<WeightChartView.Series> series = new MutableLiveData<>();
+    private final MutableLiveData<Long> eta = new MutableLiveData<>();
+    //Lines read by the import in progress, or null when no import is running
+    private final MutableLiveData<Integer> importProgress = new MutableLiveData<>();
+    private final MutableLiveData<WeightImporter.Result> importResult = new MutableLiveData<>();
+    private final InvalidationTracker.Observer observer = this::onInvalidated;
+    private String user;
+    private Adapter.Snapshot current = Adapter.Snapshot.EMPTY;
+    private boolean loading;
+    private boolean refreshPending;
+    private boolean lastPageLoaded;
+
+    //Range of the chart last asked for, or a period of -1 before the chart has asked
+    private long chartFrom;
+    private long chartTo;
+    private int chartPeriod = -1;
+    private boolean chartLoading;
+    private boolean chartPending;
+
+    public WeightViewModel(@NonNull Application application) {
+        super(application);
+        database = AsyncDatabase.getInstance(application);
+    }
+
+    /**
+     * Method to load the first page and goal of a user. Later calls do nothing so a recreated
+     * screen gets the data already loaded.
+     * @param user Username of user.
+     */
+    public void start(String user) {
+        if (this.user != null) {
+            return;
+        }
+        this.user = user;
+
+        Prefetch prefetch = takePrefetch(user);
+        if (prefetch != null) {
+            goal.setValue(prefetch.goal);
+            lastPageLoaded = prefetch.page.size() < PAGE_SIZE;
+            show(Adapter.append(current, prefetch.page));
+        } else {
+            refreshGoal();
+            loadNextPage();
+        }
+        refreshStats();
+        refreshEta();
+        database.getInvalidationTracker().addObserver(user, observer,
+                Database.WeightTable.TABLE, Database.UserTable.TABLE);
+    }
+
+    /**
+     * Method to start reading a user's goal and first page so the weight screen can open with
+     * them already loaded. It is meant to run alongside the slow password check at login.
+     * @param database The database.
+     * @param user Username of user.
+     */
+    static void prefetch(AsyncDatabase database, String user) {
+        prefetchUser = user;
+        prefetched = null;
+        database.read(db -> new Prefetch(user, db.getGoal(user),
+                db.getEntries(user, Long.MAX_VALUE, Long.MAX_VALUE, PAGE_SIZE)), prefetch -> {
+            //Dropped if the login failed or another user tried logging in meanwhile
+            if (prefetch.user.equals(prefetchUser)) {
+                prefetched = prefetch;
+            }
+        });
+    }
+
+    /**
+     * Method to throw away a prefetch after a failed login.
+     */
+    static void clearPrefetch() {
+        prefetchUser = null;
+        prefetched = null;
+    }
+
+    /**
+     * Method to take the prefetched data of a user if it has arrived.
+     * @param user Username of user.
+     * @return The prefetched data or null if there is none for the user.
+     */
+    private static Prefetch takePrefetch(String user) {
+        Prefetch prefetch = prefetched;
+        clearPrefetch();
+        return prefetch != null && prefetch.user.equals(user) ? prefetch : null;
+    }
+
+    /**
+     * Method to get the loaded rows along with the changes since the rows before them.
+     * @return Rows of the weight screen.
+     */
+    public LiveData<Adapter.Update> getRows() {
+        return rows;
+    }
+
+    /**
+     * Method to get the goal of the user.
+     * @return Goal of the user or 0 if no goal set.
+     */
+    public LiveData<Integer> getGoal() {
+        return goal;
+    }
+
+    /**
+     * Method to get the summary of the user's recent weights.
+     * @return Statistics of the last 30 days.
+     */
+    public LiveData<WeightStats> getStats() {
+        return stats;
+    }
+
+    /**
+     * Method to get the weights of the range the chart last asked for.
+     * @return Weight series in date order.
+     */
+    public LiveData<WeightChartView.Series> getSeries() {
+        return series;
+    }
+
+    /**
+     * Method to get the day the user is expected to reach their goal.
+     * @return Epoch day of the goal or GoalForecaster.NO_ETA if it can't be estimated.
+     */
+    public LiveData<Long> getEta() {
+        return eta;
+    }
+
+    /**
+     * Method to get the progress of the import in progress.
+     * @return Lines read so far, or null when no import is running.
+     */
+    public LiveData<Integer> getImportProgress() {
+        return importProgress;
+    }
+
+    /**
+     * Method to get the outcome of the last import until it has been shown.
+     * @return Result of the import or null if there is none to show.
+     */
+    public LiveData<WeightImporter.Result> getImportResult() {
+        return importResult;
+    }
+
+    /**
+     * Method to forget the outcome of the last import once it has been shown.
+     */
+    public void clearImportResult() {
+        importResult.setValue(null);
+    }
+
+    /**
+     * Method to import a CSV file of weights for the user. The import belongs to the view
+     * model, so a recreated screen keeps showing its progress.
+     * @param uri Location of the file.
+     */
+    public void importCsv(Uri uri) {
+        if (importProgress.getValue() != null) {
+            return;
+        }
+        importProgress.setValue(0);
+
+        ContentResolver resolver = getApplication().getContentResolver();
+        database.write(db -> {
+            WeightImporter importer = new WeightImporter(db, importProgress::postValue);
+            try (InputStream in = resolver.openInputStream(uri)) {
+                if (in == null) {
+                    throw new FileNotFoundException(uri.toString());
+                }
+                return importer.importCsv(user, in);
+            } catch (IOException e) {
+                return WeightImporter.Result.unreadable(e.getMessage());
+            }
+        }, result -> {
+            importProgress.setValue(null);
+            importResult.setValue(result);
+        });
+    }
+
+    @Override
+    protected void onCleared() {
+        database.getInvalidationTracker().removeObserver(observer);
+    }
+
+    /**
+     * Method to load the average weights the chart needs for a range of days. It is reloaded
+     * whenever the weights change, so only the latest range is kept.
+     * @param fromDay First epoch day needed, or Long.MIN_VALUE from the first entry.
+     * @param toDay Last epoch day needed, or Long.MAX_VALUE to the last entry.
+     * @param period WeightRollup period to average the weights by.
+     */
+    public void loadChart(long fromDay, long toDay, int period) {
+        chartFrom = fromDay;
+        chartTo = toDay;
+        chartPeriod = period;
+        refreshSeries();
+    }
+
+    /**
+     * Method to load the next page if the user has scrolled close to the end of the list.
+     * @param lastVisible Position of the last card on screen.
+     */
+    public void loadMoreIfNeeded(int lastVisible) {
+        if (lastVisible + PREFETCH_DISTANCE >= current.size) {
+            loadNextPage();
+        }
+    }
+
+    /**
+     * Method to re-query only the data behind the tables that were written.
+     * @param tables Tables changed for this user since the last call.
+     */
+    private void onInvalidated(List<String> tables) {
+        if (tables.contains(Database.WeightTable.TABLE)) {
+            refresh();
+            refreshStats();
+            refreshSeries();
+        }
+        if (tables.contains(Database.UserTable.TABLE)) {
+            refreshGoal();
+        }
+        refreshEta();
+    }
+
+    /**
+     * Method to reload the goal shown on every card.
+     */
+    private void refreshGoal() {
+        database.read(db -> db.getGoal(user), goal::setValue);
+    }
+
+    /**
+     * Method to reload the summary of the last 30 days.
+     */
+    private void refreshStats() {
+        long today = LocalDate.now().toEpochDay();
+        database.read(db -> db.getStats(user, today - STATS_DAYS + 1, today), stats::setValue);
+    }
+
+    /**
+     * Method to reload the forecast of when the goal will be reached. The forecast is stored
+     * with the user, so this does not read any entries.
+     */
+    private void refreshEta() {
+        database.read(db -> db.getForecast(user).getEtaDay(db.getGoal(user)), eta::setValue);
+    }
+
+    /**
+     * Method to reload the range drawn on the chart. While a load is running only one more is
+     * queued, which reads the latest range asked for.
+     */
+    private void refreshSeries() {
+        if (chartPeriod < 0) {
+            return;
+        }
+        if (chartLoading) {
+            chartPending = true;
+            return;
+        }
+        chartLoading = true;
+        chartPending = false;
+
+        long fromDay = chartFrom;
+        long toDay = chartTo;
+        int period = chartPeriod;
+        database.read(db -> readSeries(db, user, fromDay, toDay, period), loaded -> {
+            chartLoading = false;
+            series.setValue(loaded);
+            if (chartPending) {
+                refreshSeries();
+            }
+        });
+    }
+
+    /**
+     * Method to read the average weights of a range from the rollups. The range is widened by
+     * its own length on each side so the chart can be panned a while before loading again.
+     * The scale of the chart comes from the monthly rollups, so no entries are read at all.
+     * @param db The database.
+     * @param user Username of user.
+     * @param fromDay First epoch day needed.
+     * @param toDay Last epoch day needed.
+     * @param period WeightRollup period to average the weights by.
+     * @return Weight series in date order.
+     */
+    private static WeightChartView.Series readSeries(Database db, String user, long fromDay,
+                                                     long toDay, int period) {
+        Long first = db.getFirstDay(user);
+        Long last = db.getLastDay(user);
+        if (first == null || last == null) {
+            return WeightChartView.Series.NONE;
+        }
+
+        int minWeight = Integer.MAX_VALUE;
+        int maxWeight = Integer.MIN_VALUE;
+        for (WeightRollup month : db.getRollups(user, WeightRollup.MONTH, first, last)) {
+            minWeight = Math.min(minWeight, month.min);
+            maxWeight = Math.max(maxWeight, month.max);
+        }
+
+        long from = Math.min(Math.max(fromDay, first), last);
+        long to = Math.max(Math.min(toDay, last), from);
+        long span = to - from;
+        from = Math.max(from - span, first);
+        to = Math.min(to + span, last);
+
+        ArrayList<WeightRollup> rollups = db.getRollups(user, period, from, to);
+        int size = rollups.size();
+        int[] days = new int[size];
+        int[] weights = new int[size];
+        for (int i = 0; i < size; i++) {
+            //Each average is drawn in the middle of its week or month
+            WeightRollup rollup = rollups.get(i);
+            long start = rollup.getFirstDay();
+            days[i] = (int) (start + (WeightRollup.lastDay(period, rollup.bucket) - start) / 2);
+            weights[i] = (int) Math.round(rollup.getMean());
+        }
+
+        //Nothing is missing past the first or last entry, so those ends are left open
+        return new WeightChartView.Series(days, weights, size, period,
+                from == first ? Long.MIN_VALUE : from, to == last ? Long.MAX_VALUE : to,
+                first, last, minWeight, maxWeight);
+    }
+
+    /**
+     * Method to load the page of entries that comes after the last one loaded. Pages are found
+     * by seeking past the last date and id instead of using an offset.
+     */
+    private void loadNextPage() {
+        if (loading || lastPageLoaded) {
+            return;
+        }
+        loading = true;
+
+        long beforeDay = Long.MAX_VALUE;
+        long beforeId = Long.MAX_VALUE;
+        if (current.size > 0) {
+            beforeDay = current.days[current.size - 1];
+            beforeId = current.ids[current.size - 1];
+        }
+
+        long pageDay = beforeDay;
+        long pageId = beforeId;
+        database.read(db -> db.getEntries(user, pageDay, pageId, PAGE_SIZE), page -> {
+            loading = false;
+            lastPageLoaded = page.size() < PAGE_SIZE;
+
+            show(Adapter.append(current, page));
+            if (refreshPending) {
+                refresh();
+            }
+        });
+    }
+
+    /**
+     * Method to reload the entries already loaded after the weights changed. The differences
+     * are worked out on a background thread so only the cards that changed are updated.
+     */
+    private void refresh() {
+        //Wait for a page that is still loading so the two can't overlap
+        if (loading) {
+            refreshPending = true;
+            return;
+        }
+        loading = true;
+        refreshPending = false;
+
+        Adapter.Snapshot snapshot = current;
+        int limit = Math.max(snapshot.size, PAGE_SIZE);
+        database.read(db -> Adapter.diff(snapshot,
+                db.getEntries(user, Long.MAX_VALUE, Long.MAX_VALUE, limit)), update -> {
+            loading = false;
+            lastPageLoaded = update.rows.size < limit;
+
+            show(update);
+            if (refreshPending) {
+                refresh();
+            }
+        });
+    }
+
+    private void show(Adapter.Update update) {
+        current = update.rows;
+        rows.setValue(update);
+    }
+
+    /**
+     * Data read for a user before the weight screen opened.
+     */
+    private static final class Prefetch {
+        private final String user;
+        private final int goal;
+        private final List<WeightEntry> page;
+
+        private Prefetch(String user, int goal, List<WeightEntry> page) {
+            this.user = user;
+            this.goal = goal;
+            this.page = page;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Check which weights the entry validator flags as likely typos
+ */
+
+package com.zybooks.weighttrackerapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * The EntryValidatorTest class checks that typos are flagged while normal changes are not, and
+ * replays a million entries to bound the time each check takes.
+ */
+public class EntryValidatorTest {
+
+    /**
+     * Method to build a validator from a steady series with some daily noise.
+     * @param entries Number of entries.
+     * @return The validator.
+     */
+    private static EntryValidator steady(int entries) {
+        Random random = new Random(11);
+        EntryValidator validator = new EntryValidator();
+        for (int i = 0; i < entries; i++) {
+            validator.add(20000 + i, 185 + random.nextInt(5) - 2);
+        }
+        return validator;
+    }
+
+    @Test
+    public void typosAreSuspicious() {
+        EntryValidator validator = steady(EntryValidator.WINDOW);
+
+        assertTrue(validator.isSuspicious(1850));
+        assertTrue(validator.isSuspicious(18));
+        assertTrue(validator.isSuspicious(158));
+    }
+
+    @Test
+    public void normalChangesAreNotSuspicious() {
+        EntryValidator validator = steady(EntryValidator.WINDOW);
+
+        assertFalse(validator.isSuspicious(185));
+        assertFalse(validator.isSuspicious(183));
+        assertFalse(validator.isSuspicious(189));
+        assertEquals(185, validator.getMedian(), 1);
+    }
+
+    @Test
+    public void fewEntriesAreNeverSuspicious() {
+        assertFalse(steady(0).isSuspicious(1850));
+        assertFalse(steady(4).isSuspicious(1850));
+        assertTrue(steady(5).isSuspicious(1850));
+    }
+
+    @Test
+    public void steadyWeightStillAllowsSomeChange() {
+        EntryValidator validator = new EntryValidator();
+        for (int i = 0; i < EntryValidator.WINDOW; i++) {
+            validator.add(20000 + i, 200);
+        }
+
+        assertFalse(validator.isSuspicious(205));
+        assertTrue(validator.isSuspicious(220));
+    }
+
+    @Test
+    public void canAddOnlyFromLastDay() {
+        EntryValidator validator = steady(10);
+
+        assertTrue(validator.canAdd(20009));
+        assertTrue(validator.canAdd(20010));
+        assertFalse(validator.canAdd(20008));
+    }
+
+    @Test(timeout = 10000)
+    public void replaysMillionEntries() {
+        //Each add and check is O(log n) in the window, so a million of them stay well in time
+        Random random = new Random(5);
+        EntryValidator validator = new EntryValidator();
+        int flagged = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            int weight = 185 + random.nextInt(7) - 3;
+            if (i % 10_000 == 0) {
+                weight *= 10;
+            }
+            if (validator.isSuspicious(weight)) {
+                flagged++;
+            }
+            validator.add(20000 + i, weight);
+        }
+
+        //Only the typed in typos are flagged, after the first few entries
+        assertEquals(99, flagged);
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Check the goal forecast against synthetic weight series
+ */
+
+package com.zybooks.weighttrackerapp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * The GoalForecasterTest class feeds the forecaster series with a known pace and checks the
+ * slope, trend and projected day, along with saving and loading the forecast.
+ */
+public class GoalForecasterTest {
+    private static final long START_DAY = 20000;
+
+    /**
+     * Method to build a forecast of a weight that changes by the same amount every day.
+     * @param days Number of daily entries.
+     * @param first Weight of the first day.
+     * @param perDay Change in weight per day.
+     * @return The forecast of the series.
+     */
+    private static GoalForecaster linear(int days, double first, double perDay) {
+        GoalForecaster forecaster = new GoalForecaster();
+        for (int i = 0; i < days; i++) {
+            forecaster.add(START_DAY + i, (int) Math.round(first + perDay * i));
+        }
+        return forecaster;
+    }
+
+    @Test
+    public void slopeAndTrendMatchSteadyLoss() {
+        GoalForecaster forecaster = linear(120, 220, -0.5);
+
+        assertEquals(-0.5, forecaster.getSlope(), 0.02);
+        assertEquals(-0.5, forecaster.getTrend(), 0.05);
+        assertEquals(160, forecaster.getLevel(), 1.5);
+        assertEquals(120, forecaster.getCount());
+    }
+
+    @Test
+    public void etaMatchesSteadyLoss() {
+        //Ends at 160.5, so a goal of 150 is about 21 days past the last entry
+        GoalForecaster forecaster = linear(120, 220, -0.5);
+        long lastDay = START_DAY + 119;
+
+        assertEquals(lastDay + 21, forecaster.getEtaDay(150), 3);
+    }
+
+    @Test
+    public void etaMatchesSteadyGainWithNoise() {
+        Random random = new Random(42);
+        GoalForecaster forecaster = new GoalForecaster();
+        for (int i = 0; i < 180; i++) {
+            forecaster.add(START_DAY + i, (int) Math.round(140 + 0.25 * i + random.nextGaussian()));
+        }
+
+        //Ends near 185, so a goal of 200 is about 60 days past the last entry
+        long lastDay = START_DAY + 179;
+        assertEquals(lastDay + 60, forecaster.getEtaDay(200), 10);
+    }
+
+    @Test
+    public void etaFollowsRecentPaceAfterChange() {
+        //Half a year of steady weight then a month of loss, which the fading older days follow
+        GoalForecaster forecaster = new GoalForecaster();
+        for (int i = 0; i < 180; i++) {
+            forecaster.add(START_DAY + i, 200);
+        }
+        for (int i = 0; i < 60; i++) {
+            forecaster.add(START_DAY + 180 + i, (int) Math.round(200 - 0.5 * i));
+        }
+
+        long eta = forecaster.getEtaDay(150);
+        assertTrue(eta != GoalForecaster.NO_ETA);
+        assertTrue(eta > START_DAY + 239);
+    }
+
+    @Test
+    public void noEtaWithoutGoalOrEnoughHistory() {
+        assertEquals(GoalForecaster.NO_ETA, linear(120, 220, -0.5).getEtaDay(0));
+        assertEquals(GoalForecaster.NO_ETA, linear(4, 220, -0.5).getEtaDay(150));
+        assertEquals(GoalForecaster.NO_ETA, linear(6, 220, -0.5).getEtaDay(150));
+        assertEquals(GoalForecaster.NO_ETA, new GoalForecaster().getEtaDay(150));
+    }
+
+    @Test
+    public void noEtaWhenMovingAwayFromGoal() {
+        assertEquals(GoalForecaster.NO_ETA, linear(120, 220, -0.5).getEtaDay(250));
+        assertEquals(GoalForecaster.NO_ETA, linear(120, 150, 0.5).getEtaDay(140));
+    }
+
+    @Test
+    public void noEtaWhenGoalIsTooFarOut() {
+        //A pound a month would take over 10 years to lose 150 pounds
+        assertEquals(GoalForecaster.NO_ETA, linear(120, 220, -1.0 / 30).getEtaDay(66));
+    }
+
+    @Test
+    public void etaIsLastDayOnceGoalIsReached() {
+        GoalForecaster forecaster = new GoalForecaster();
+        for (int i = 0; i < 30; i++) {
+            forecaster.add(START_DAY + i, 170);
+        }
+        assertEquals(START_DAY + 29, forecaster.getEtaDay(170));
+    }
+
+    @Test
+    public void sameDayEntriesKeepTheSlope() {
+        GoalForecaster forecaster = new GoalForecaster();
+        for (int i = 0; i < 120; i++) {
+            forecaster.add(START_DAY + i, (int) Math.round(220 - 0.5 * i));
+            forecaster.add(START_DAY + i, (int) Math.round(220 - 0.5 * i));
+        }
+        assertEquals(-0.5, forecaster.getSlope(), 0.02);
+    }
+
+    @Test
+    public void canAddOnlyInDateOrder() {
+        GoalForecaster forecaster = linear(10, 200, -1);
+
+        assertTrue(forecaster.canAdd(START_DAY + 9));
+        assertTrue(forecaster.canAdd(START_DAY + 10));
+        assertFalse(forecaster.canAdd(START_DAY + 8));
+        assertTrue(new GoalForecaster().canAdd(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addRejectsEarlierDay() {
+        linear(10, 200, -1).add(START_DAY, 200);
+    }
+
+    @Test
+    public void bytesRoundTrip() {
+        GoalForecaster forecaster = linear(90, 210, -0.3);
+        GoalForecaster loaded = GoalForecaster.fromBytes(forecaster.toBytes());
+
+        assertNotNull(loaded);
+        assertEquals(forecaster.getCount(), loaded.getCount());
+        assertEquals(forecaster.getSlope(), loaded.getSlope(), 0);
+        assertEquals(forecaster.getLevel(), loaded.getLevel(), 0);
+        assertEquals(forecaster.getTrend(), loaded.getTrend(), 0);
+        assertEquals(forecaster.getEtaDay(180), loaded.getEtaDay(180));
+        assertArrayEquals(forecaster.toBytes(), loaded.toBytes());
+    }
+
+    @Test
+    public void emptyBytesRoundTrip() {
+        GoalForecaster loaded = GoalForecaster.fromBytes(new GoalForecaster().toBytes());
+
+        assertNotNull(loaded);
+        assertEquals(0, loaded.getCount());
+        assertTrue(loaded.canAdd(START_DAY));
+    }
+
+    @Test
+    public void savingBetweenEntriesMatchesOnePass() {
+        //The database saves the forecast after every insert, which must not change the result
+        Random random = new Random(7);
+        GoalForecaster onePass = new GoalForecaster();
+        GoalForecaster saved = new GoalForecaster();
+        long day = START_DAY;
+        for (int i = 0; i < 500; i++) {
+            day += random.nextInt(3);
+            int weight = 180 + random.nextInt(20);
+            onePass.add(day, weight);
+            saved.add(day, weight);
+            saved = GoalForecaster.fromBytes(saved.toBytes());
+        }
+
+        assertArrayEquals(onePass.toBytes(), saved.toBytes());
+    }
+
+    @Test
+    public void fromBytesRejectsOtherData() {
+        byte[] bytes = linear(10, 200, -1).toBytes();
+        byte[] otherFormat = bytes.clone();
+        otherFormat[0] = 0;
+        byte[] shorter = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 0, shorter, 0, shorter.length);
+
+        assertNull(GoalForecaster.fromBytes(null));
+        assertNull(GoalForecaster.fromBytes(new byte[0]));
+        assertNull(GoalForecaster.fromBytes(otherFormat));
+        assertNull(GoalForecaster.fromBytes(shorter));
+    }
+
+    @Test(timeout = 10000)
+    public void addsMillionEntriesQuickly() {
+        //Each add is constant time, so a lifetime of entries is far below the limit
+        Random random = new Random(1);
+        GoalForecaster forecaster = new GoalForecaster();
+        for (int i = 0; i < 1_000_000; i++) {
+            forecaster.add(START_DAY + i / 3, 200 - i / 30_000 + random.nextInt(3));
+        }
+
+        assertEquals(1_000_000, forecaster.getCount());
+        assertTrue(Double.isFinite(forecaster.getSlope()));
+        assertTrue(Double.isFinite(forecaster.getLevel()));
+        assertTrue(Double.isFinite(forecaster.getTrend()));
+    }
+}
@@ -0,0 +1,319 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Upgrade a database from every past version and check no data is lost
+ */
+
+package com.zybooks.weighttrackerapp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import com.zybooks.weighttrackerapp.Database.RollupTable;
+import com.zybooks.weighttrackerapp.Database.SessionTable;
+import com.zybooks.weighttrackerapp.Database.UserTable;
+import com.zybooks.weighttrackerapp.Database.WeightTable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * The MigrationsTest class loads a fixture database for each past version from
+ * src/test/resources/migrations, upgrades it to the current version and checks the schema
+ * matches a new install and every row was carried over. A new version needs a new fixture
+ * holding the schema it was created with.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class MigrationsTest {
+    private static final int OLDEST_VERSION = 1;
+
+    //Entries of every fixture in id order as user, date and weight
+    private static final Object[][] ENTRIES = {
+            {"alice", "09/01/26", 190}, {"alice", "09/03/26", 189}, {"alice", "09/03/26", 188},
+            {"alice", "09/10/26", 187}, {"alice", "09/20/26", 185}, {"alice", "10/02/26", 184},
+            {"alice", "10/15/26", 182}, {"alice", "not a date", 180},
+            {"bob", "01/05/25", 210}, {"bob", "12/31/24", 212}, {"bob", "01/05/25", 209}
+    };
+
+    private Database database;
+
+    @Before
+    public void setUp() {
+        //Opening the database gives the Encryptor the preferences the version 6 step needs
+        database = Database.getInstance(ApplicationProvider.getApplicationContext());
+    }
+
+    @Test
+    public void upgradesFromEveryPastVersion() throws Exception {
+        for (int version = OLDEST_VERSION; version < Database.VERSION; version++) {
+            SQLiteDatabase db = open(version);
+            Migrations.migrate(db, version, Database.VERSION);
+
+            assertSchemaMatchesNewInstall(version, db);
+            assertEntriesKept(version, db);
+            assertUsersKept(version, db);
+            assertSessionsKept(version, db);
+            assertRollupsMatchEntries(version, db);
+            assertForecastsMatchEntries(version, db);
+            db.close();
+        }
+    }
+
+    @Test
+    public void upgradesOneVersionAtATime() throws Exception {
+        //A device may have upgraded through any of the past versions on the way
+        SQLiteDatabase db = open(OLDEST_VERSION);
+        for (int version = OLDEST_VERSION; version < Database.VERSION; version++) {
+            Migrations.migrate(db, version, version + 1);
+        }
+
+        assertSchemaMatchesNewInstall(OLDEST_VERSION, db);
+        assertEntriesKept(OLDEST_VERSION, db);
+        assertUsersKept(OLDEST_VERSION, db);
+        db.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unknownVersionIsRejected() throws Exception {
+        SQLiteDatabase db = SQLiteDatabase.create(null);
+        try {
+            Migrations.migrate(db, 0, Database.VERSION);
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test
+    public void everyPastVersionHasAFixture() {
+        for (int version = OLDEST_VERSION; version < Database.VERSION; version++) {
+            assertNotNull("Missing fixture for version " + version, fixture(version));
+        }
+    }
+
+    /**
+     * Method to create an in memory database from the fixture of a version.
+     * @param version Version of the fixture.
+     * @return The database at that version.
+     */
+    private SQLiteDatabase open(int version) throws IOException {
+        SQLiteDatabase db = SQLiteDatabase.create(null);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(fixture(version),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty() && !line.startsWith("--")) {
+                    db.execSQL(line);
+                }
+            }
+        }
+        db.setVersion(version);
+        return db;
+    }
+
+    private InputStream fixture(int version) {
+        return getClass().getClassLoader().getResourceAsStream("migrations/v" + version + ".sql");
+    }
+
+    private void assertSchemaMatchesNewInstall(int version, SQLiteDatabase db) {
+        SQLiteDatabase fresh = SQLiteDatabase.create(null);
+        database.onCreate(fresh);
+
+        assertEquals("v" + version + " schema", describeSchema(fresh), describeSchema(db));
+        fresh.close();
+    }
+
+    /**
+     * Method to list each table and index with its columns, leaving out the order they were
+     * created in and SQLite's own entries.
+     * @param db The database.
+     * @return Columns of each table and index by name.
+     */
+    private static TreeMap<String, List<String>> describeSchema(SQLiteDatabase db) {
+        TreeMap<String, List<String>> schema = new TreeMap<>();
+        Cursor cursor = db.rawQuery("SELECT type, name FROM sqlite_master WHERE name NOT LIKE " +
+                "'sqlite_%' AND name != 'android_metadata'", null);
+        while (cursor.moveToNext()) {
+            String type = cursor.getString(0);
+            String name = cursor.getString(1);
+            String pragma = type.equals("index") ? "index_info" : "table_info";
+            List<String> columns = new ArrayList<>();
+            Cursor info = db.rawQuery("PRAGMA " + pragma + "(" + name + ")", null);
+            while (info.moveToNext()) {
+                columns.add(info.getString(info.getColumnIndexOrThrow("name")));
+            }
+            info.close();
+            schema.put(type + " " + name, columns);
+        }
+        cursor.close();
+        return schema;
+    }
+
+    private void assertEntriesKept(int version, SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery("SELECT " + WeightTable.ID + ", " + WeightTable.USER + ", " +
+                WeightTable.DATE + ", " + WeightTable.WEIGHT + ", " + WeightTable.EPOCH_DAY +
+                " FROM " + WeightTable.TABLE + " ORDER BY " + WeightTable.ID, null);
+        assertEquals("v" + version + " entries", ENTRIES.length, cursor.getCount());
+
+        for (int i = 0; cursor.moveToNext(); i++) {
+            String message = "v" + version + " entry " + (i + 1);
+            String date = (String) ENTRIES[i][1];
+            assertEquals(message, i + 1, cursor.getLong(0));
+            assertEquals(message, ENTRIES[i][0], cursor.getString(1));
+            assertEquals(message, date, cursor.getString(2));
+            assertEquals(message, (int) ENTRIES[i][2], cursor.getInt(3));
+            if (date.equals("not a date")) {
+                assertTrue(message, cursor.isNull(4));
+            } else {
+                assertEquals(message, WeightEntry.toEpochDay(date), cursor.getLong(4));
+            }
+        }
+        cursor.close();
+    }
+
+    private void assertUsersKept(int version, SQLiteDatabase db) throws Exception {
+        Cursor cursor = db.rawQuery("SELECT " + UserTable.USER + ", " + UserTable.PASS + ", " +
+                UserTable.PHONE + ", " + UserTable.GOAL + ", " + UserTable.SALT + ", " +
+                UserTable.ITERATIONS + ", " + UserTable.HASH + " FROM " + UserTable.TABLE +
+                " ORDER BY " + UserTable.USER, null);
+        assertEquals(3, cursor.getCount());
+
+        //Alice has a phone number and the highest of her version 1 goals
+        cursor.moveToNext();
+        assertEquals("alice", cursor.getString(0));
+        assertEquals("5551234567", cursor.getString(2));
+        assertEquals(150, cursor.getInt(3));
+        if (version == 1) {
+            assertHashedOnUpgrade(cursor, "alicepass");
+        } else if (version < 6) {
+            //Encrypted passwords are replaced by a hash at the next login
+            assertEquals("T3BhcXVlRW5jcnlwdGVkQWxpY2U=", cursor.getString(1));
+            assertEquals("c2FsdGFsaWNl", cursor.getString(4));
+            assertTrue(cursor.isNull(6));
+        } else {
+            assertTrue(cursor.isNull(1));
+            assertEquals(120000, cursor.getInt(5));
+            assertArrayEquals(filled((byte) 0xA1), cursor.getBlob(6));
+        }
+
+        cursor.moveToNext();
+        assertEquals("bob", cursor.getString(0));
+        assertEquals("EMPTY", cursor.getString(2));
+        assertEquals(0, cursor.getInt(3));
+        if (version == 1) {
+            assertHashedOnUpgrade(cursor, "bobpass");
+        } else {
+            assertEquals("T3BhcXVlRW5jcnlwdGVkQm9i", cursor.getString(1));
+            assertTrue(cursor.isNull(6));
+        }
+
+        //Carol's plain text password was carried over from version 1 without a salt
+        cursor.moveToNext();
+        assertEquals("carol", cursor.getString(0));
+        assertEquals(0, cursor.getInt(3));
+        if (version < 6) {
+            assertHashedOnUpgrade(cursor, "carolpass");
+        } else {
+            assertTrue(cursor.isNull(1));
+            assertArrayEquals(filled((byte) 0xC3), cursor.getBlob(6));
+        }
+        cursor.close();
+    }
+
+    /**
+     * Method to check a plain text password was replaced by a hash with a new salt.
+     * @param cursor Cursor on the user's row.
+     * @param pass Plain text password of the fixture.
+     */
+    private static void assertHashedOnUpgrade(Cursor cursor, String pass) throws Exception {
+        assertTrue(cursor.isNull(1));
+        assertFalse(cursor.isNull(4));
+        assertEquals(Encryptor.LEGACY_ITERATIONS, cursor.getInt(5));
+        assertArrayEquals(Encryptor.hash(pass, cursor.getString(4), Encryptor.LEGACY_ITERATIONS),
+                cursor.getBlob(6));
+    }
+
+    private void assertSessionsKept(int version, SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery("SELECT " + SessionTable.TOKEN_HASH + ", " + SessionTable.USER +
+                " FROM " + SessionTable.TABLE, null);
+        if (version < 7) {
+            assertEquals(0, cursor.getCount());
+        } else {
+            assertTrue(cursor.moveToNext());
+            assertArrayEquals(filled((byte) 0x5E), cursor.getBlob(0));
+            assertEquals("alice", cursor.getString(1));
+            assertFalse(cursor.moveToNext());
+        }
+        cursor.close();
+    }
+
+    private void assertRollupsMatchEntries(int version, SQLiteDatabase db) {
+        List<String> upgraded = readRollups(db);
+        Database.rebuildRollups(db, null);
+
+        assertFalse(upgraded.isEmpty());
+        assertEquals("v" + version + " rollups", readRollups(db), upgraded);
+    }
+
+    private static List<String> readRollups(SQLiteDatabase db) {
+        List<String> rows = new ArrayList<>();
+        Cursor cursor = db.rawQuery("SELECT " + RollupTable.USER + ", " + RollupTable.PERIOD + ", " +
+                RollupTable.BUCKET + ", " + RollupTable.SUM + ", " + RollupTable.COUNT + ", " +
+                RollupTable.MIN + ", " + RollupTable.MAX + " FROM " + RollupTable.TABLE +
+                " ORDER BY " + RollupTable.USER + ", " + RollupTable.PERIOD + ", " +
+                RollupTable.BUCKET, null);
+        while (cursor.moveToNext()) {
+            rows.add(cursor.getString(0) + " " + cursor.getInt(1) + " " + cursor.getLong(2) + " " +
+                    cursor.getDouble(3) + " " + cursor.getInt(4) + " " + cursor.getDouble(5) + " " +
+                    cursor.getDouble(6));
+        }
+        cursor.close();
+        return rows;
+    }
+
+    private void assertForecastsMatchEntries(int version, SQLiteDatabase db) {
+        for (String user : new String[]{"alice", "bob", "carol"}) {
+            String message = "v" + version + " forecast of " + user;
+            byte[] upgraded = readForecast(db, user);
+            assertNotNull(message, upgraded);
+
+            //Alice's version 10 forecast was already stored and is kept as it was
+            if (version == 10 && user.equals("alice")) {
+                assertEquals(message, 7, GoalForecaster.fromBytes(upgraded).getCount());
+                continue;
+            }
+            Database.rebuildForecast(db, user);
+            assertArrayEquals(message, readForecast(db, user), upgraded);
+        }
+    }
+
+    private static byte[] readForecast(SQLiteDatabase db, String user) {
+        Cursor cursor = db.rawQuery("SELECT " + UserTable.FORECAST + " FROM " + UserTable.TABLE +
+                " WHERE " + UserTable.USER + " = ?", new String[]{user});
+        byte[] forecast = cursor.moveToFirst() ? cursor.getBlob(0) : null;
+        cursor.close();
+        return forecast;
+    }
+
+    private static byte[] filled(byte value) {
+        byte[] bytes = new byte[32];
+        Arrays.fill(bytes, value);
+        return bytes;
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * @author Afahri Kerr (AfahriAKerr91@gmail.com)
+ * @version 2.0
+ * @since 10/17/2026
+ * Purpose: Check the rolling median against a sorted copy of the window
+ */
+
+package com.zybooks.weighttrackerapp;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * The RollingMedianTest class replays values into the two heaps and compares every median with
+ * one worked out by sorting the same window, so a slip in the heap positions shows up.
+ */
+public class RollingMedianTest {
+
+    /**
+     * Method to work out the median of the last values added by sorting them.
+     * @param window Values of the window in the order added, oldest first.
+     * @param size Number of values in the window.
+     * @return The median.
+     */
+    private static double sortedMedian(int[] window, int size) {
+        int[] sorted = Arrays.copyOf(window, size);
+        Arrays.sort(sorted);
+        if (size % 2 == 1) {
+            return sorted[size / 2];
+        }
+        return (sorted[size / 2 - 1] + (double) sorted[size / 2]) / 2;
+    }
+
+    /**
+     * Method to add values to a rolling median and check it against the sorted window after
+     * each one.
+     * @param capacity Size of the window.
+     * @param values Values to add.
+     */
+    private static void replay(int capacity, int[] values) {
+        RollingMedian median = new RollingMedian(capacity);
+        int[] window = new int[capacity];
+        int size = 0;
+
+        for (int i = 0; i < values.length; i++) {
+            median.add(values[i]);
+            if (size < capacity) {
+                window[size++] = values[i];
+            } else {
+                System.arraycopy(window, 1, window, 0, capacity - 1);
+                window[capacity - 1] = values[i];
+            }
+
+            assertEquals(size, median.size());
+            assertEquals("value " + i, sortedMedian(window, size), median.getMedian(), 0);
+        }
+    }
+
+    @Test
+    public void emptyMedianIsZero() {
+        assertEquals(0, new RollingMedian(5).getMedian(), 0);
+        assertEquals(0, new RollingMedian(5).size());
+    }
+
+    @Test
+    public void oddAndEvenWindows() {
+        RollingMedian median = new RollingMedian(4);
+        median.add(180);
+        assertEquals(180, median.getMedian(), 0);
+        median.add(190);
+        assertEquals(185, median.getMedian(), 0);
+        median.add(170);
+        assertEquals(180, median.getMedian(), 0);
+        median.add(175);
+        assertEquals(177.5, median.getMedian(), 0);
+
+        //180 is dropped as the oldest value
+        median.add(200);
+        assertEquals(182.5, median.getMedian(), 0);
+    }
+
+    @Test
+    public void windowOfOne() {
+        replay(1, new int[]{5, 3, 9, 9, 1});
+    }
+
+    @Test
+    public void risingFallingAndRepeatedValues() {
+        int[] values = new int[300];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i < 100 ? i : i < 200 ? 300 - i : 150;
+        }
+        replay(7, values);
+        replay(30, values);
+    }
+
+    @Test
+    public void randomWindowSizes() {
+        Random random = new Random(3);
+        for (int capacity = 1; capacity <= 40; capacity++) {
+            int[] values = new int[500];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(20);
+            }
+            replay(capacity, values);
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void millionRandomValuesMatchSortedWindow() {
+        Random random = new Random(2026);
+        int[] values = new int[1_000_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 120 + random.nextInt(200);
+        }
+        replay(EntryValidator.WINDOW, values);
+    }
+}
@@ -0,0 +1,18 @@
+-- Version 3 schema as it was created, with sample rows covering each step of the upgrade
+CREATE TABLE users (username TEXT PRIMARY KEY, password TEXT, phoneNumber TEXT, goal REAL, salt TEXT);
+CREATE TABLE weights (user TEXT, date TEXT, weight REAL, epoch_day INTEGER, PRIMARY KEY (user, date, weight), FOREIGN KEY (user) REFERENCES users(username));
+CREATE INDEX IF NOT EXISTS weights_user_epoch_day ON weights (user, epoch_day);
+INSERT INTO users VALUES ('alice', 'T3BhcXVlRW5jcnlwdGVkQWxpY2U=', '5551234567', 150, 'c2FsdGFsaWNl');
+INSERT INTO users VALUES ('bob', 'T3BhcXVlRW5jcnlwdGVkQm9i', 'EMPTY', 0, 'c2FsdGJvYg==');
+INSERT INTO users VALUES ('carol', 'carolpass', 'EMPTY', 0, NULL);
+INSERT INTO weights VALUES ('alice', '09/01/26', 190, 20697);
+INSERT INTO weights VALUES ('alice', '09/03/26', 189, 20699);
+INSERT INTO weights VALUES ('alice', '09/03/26', 188, 20699);
+INSERT INTO weights VALUES ('alice', '09/10/26', 187, 20706);
+INSERT INTO weights VALUES ('alice', '09/20/26', 185, 20716);
+INSERT INTO weights VALUES ('alice', '10/02/26', 184, 20728);
+INSERT INTO weights VALUES ('alice', '10/15/26', 182, 20741);
+INSERT INTO weights VALUES ('alice', 'not a date', 180, NULL);
+INSERT INTO weights VALUES ('bob', '01/05/25', 210, 20093);
+INSERT INTO weights VALUES ('bob', '12/31/24', 212, 20088);
+INSERT INTO weights VALUES ('bob', '01/05/25', 209, 20093);
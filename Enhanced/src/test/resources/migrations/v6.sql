@@ -0,0 +1,18 @@
+-- Version 6 schema as it was created, with sample rows covering each step of the upgrade
+CREATE TABLE users (username TEXT PRIMARY KEY, password TEXT, phoneNumber TEXT, goal REAL, salt TEXT, iterations INTEGER NOT NULL DEFAULT 1000, hash BLOB);
+CREATE TABLE weights (id INTEGER PRIMARY KEY, user TEXT, date TEXT, weight REAL, epoch_day INTEGER, UNIQUE (user, date, weight), FOREIGN KEY (user) REFERENCES users(username));
+CREATE INDEX IF NOT EXISTS weights_user_epoch_day ON weights (user, epoch_day);
+INSERT INTO users VALUES ('alice', NULL, '5551234567', 150, 'c2FsdGFsaWNl', 120000, X'A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1');
+INSERT INTO users VALUES ('bob', 'T3BhcXVlRW5jcnlwdGVkQm9i', 'EMPTY', 0, 'c2FsdGJvYg==', 1000, NULL);
+INSERT INTO users VALUES ('carol', NULL, 'EMPTY', 0, 'c2FsdGNhcm9s', 1000, X'C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3');
+INSERT INTO weights VALUES (1, 'alice', '09/01/26', 190, 20697);
+INSERT INTO weights VALUES (2, 'alice', '09/03/26', 189, 20699);
+INSERT INTO weights VALUES (3, 'alice', '09/03/26', 188, 20699);
+INSERT INTO weights VALUES (4, 'alice', '09/10/26', 187, 20706);
+INSERT INTO weights VALUES (5, 'alice', '09/20/26', 185, 20716);
+INSERT INTO weights VALUES (6, 'alice', '10/02/26', 184, 20728);
+INSERT INTO weights VALUES (7, 'alice', '10/15/26', 182, 20741);
+INSERT INTO weights VALUES (8, 'alice', 'not a date', 180, NULL);
+INSERT INTO weights VALUES (9, 'bob', '01/05/25', 210, 20093);
+INSERT INTO weights VALUES (10, 'bob', '12/31/24', 212, 20088);
+INSERT INTO weights VALUES (11, 'bob', '01/05/25', 209, 20093);
@@ -0,0 +1,39 @@
+-- Version 9 schema as it was created, with sample rows covering each step of the upgrade
+CREATE TABLE users (username TEXT PRIMARY KEY, password TEXT, phoneNumber TEXT, goal REAL, salt TEXT, iterations INTEGER NOT NULL DEFAULT 1000, hash BLOB);
+CREATE TABLE weights (id INTEGER PRIMARY KEY, user TEXT, date TEXT, weight REAL, epoch_day INTEGER, UNIQUE (user, date, weight), FOREIGN KEY (user) REFERENCES users(username));
+CREATE INDEX IF NOT EXISTS weights_user_epoch_day_weight ON weights (user, epoch_day, weight);
+CREATE TABLE sessions (token_hash BLOB PRIMARY KEY, user TEXT NOT NULL, expires INTEGER NOT NULL);
+CREATE TABLE IF NOT EXISTS rollups (user TEXT NOT NULL, period INTEGER NOT NULL, bucket INTEGER NOT NULL, weight_sum REAL NOT NULL, weight_count INTEGER NOT NULL, weight_min REAL NOT NULL, weight_max REAL NOT NULL, PRIMARY KEY (user, period, bucket));
+INSERT INTO users VALUES ('alice', NULL, '5551234567', 150, 'c2FsdGFsaWNl', 120000, X'A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1A1');
+INSERT INTO users VALUES ('bob', 'T3BhcXVlRW5jcnlwdGVkQm9i', 'EMPTY', 0, 'c2FsdGJvYg==', 1000, NULL);
+INSERT INTO users VALUES ('carol', NULL, 'EMPTY', 0, 'c2FsdGNhcm9s', 1000, X'C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3C3');
+INSERT INTO weights VALUES (1, 'alice', '09/01/26', 190, 20697);
+INSERT INTO weights VALUES (2, 'alice', '09/03/26', 189, 20699);
+INSERT INTO weights VALUES (3, 'alice', '09/03/26', 188, 20699);
+INSERT INTO weights VALUES (4, 'alice', '09/10/26', 187, 20706);
+INSERT INTO weights VALUES (5, 'alice', '09/20/26', 185, 20716);
+INSERT INTO weights VALUES (6, 'alice', '10/02/26', 184, 20728);
+INSERT INTO weights VALUES (7, 'alice', '10/15/26', 182, 20741);
+INSERT INTO weights VALUES (8, 'alice', 'not a date', 180, NULL);
+INSERT INTO weights VALUES (9, 'bob', '01/05/25', 210, 20093);
+INSERT INTO weights VALUES (10, 'bob', '12/31/24', 212, 20088);
+INSERT INTO weights VALUES (11, 'bob', '01/05/25', 209, 20093);
+INSERT INTO sessions VALUES (X'5E5E5E5E5E5E5E5E5E5E5E5E5E5E5E5E5E5E5E5E5E5E5E5E5E5E5E5E5E5E5E5E', 'alice', 4102444800000);
+INSERT INTO rollups VALUES ('alice', 0, 20697, 190.0, 1, 190.0, 190.0);
+INSERT INTO rollups VALUES ('alice', 0, 20699, 377.0, 2, 188.0, 189.0);
+INSERT INTO rollups VALUES ('alice', 0, 20706, 187.0, 1, 187.0, 187.0);
+INSERT INTO rollups VALUES ('alice', 0, 20716, 185.0, 1, 185.0, 185.0);
+INSERT INTO rollups VALUES ('alice', 0, 20728, 184.0, 1, 184.0, 184.0);
+INSERT INTO rollups VALUES ('alice', 0, 20741, 182.0, 1, 182.0, 182.0);
+INSERT INTO rollups VALUES ('alice', 1, 2957, 567.0, 3, 188.0, 190.0);
+INSERT INTO rollups VALUES ('alice', 1, 2958, 187.0, 1, 187.0, 187.0);
+INSERT INTO rollups VALUES ('alice', 1, 2959, 185.0, 1, 185.0, 185.0);
+INSERT INTO rollups VALUES ('alice', 1, 2961, 184.0, 1, 184.0, 184.0);
+INSERT INTO rollups VALUES ('alice', 1, 2963, 182.0, 1, 182.0, 182.0);
+INSERT INTO rollups VALUES ('alice', 2, 24320, 939.0, 5, 185.0, 190.0);
+INSERT INTO rollups VALUES ('alice', 2, 24321, 366.0, 2, 182.0, 184.0);
+INSERT INTO rollups VALUES ('bob', 0, 20088, 212.0, 1, 212.0, 212.0);
+INSERT INTO rollups VALUES ('bob', 0, 20093, 419.0, 2, 209.0, 210.0);
+INSERT INTO rollups VALUES ('bob', 1, 2870, 631.0, 3, 209.0, 212.0);
+INSERT INTO rollups VALUES ('bob', 2, 24299, 212.0, 1, 212.0, 212.0);
+INSERT INTO rollups VALUES ('bob', 2, 24300, 419.0, 2, 209.0, 210.0);